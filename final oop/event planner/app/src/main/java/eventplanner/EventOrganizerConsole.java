@@ -0,0 +1,6089 @@
+package eventplanner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Collections;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.channels.Channels;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.NoSuchElementException;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
+import java.util.zip.CheckedOutputStream;
+
+public class EventOrganizerConsole {
+    
+    static final String[] CATEGORIES = {
+        "Birthday", "Anniversary", "Burial"
+    };
+
+    private static final Map<String, Map<String, List<String>>> CATEGORY_INCLUSIONS = createInclusionsMap();
+
+    private static Map<String, Map<String, List<String>>> createInclusionsMap() {
+        Map<String, Map<String, List<String>>> map = new LinkedHashMap<>();
+
+        Map<String, List<String>> birthday = new LinkedHashMap<>();
+        birthday.put("VENUE", Arrays.asList("PRIVATE ROOM", "EVENT SPACE"));
+        birthday.put("ENTERTAINMENT", Arrays.asList("DJ", "LIVE BAND", "GAMES", "ACTIVITIES"));
+        birthday.put("FOOD AND BEVERAGE", Arrays.asList("BUFFET", "PLATED MEAL"));
+        birthday.put("PHOTOGRAPHY", Arrays.asList("PROFESSIONAL PHOTOGRAPHER", "PHOTO BOOTH"));
+        birthday.put("ADD-ONS", Arrays.asList("PRE - BIRTHDAY SHOOT", "PROGRAM HOST"));
+        birthday.put("DECORATIONS AND THEME", Arrays.asList("BALLOONS", "BANNERS", "THEMED DECOR", "INVITATIONS", "SOUVENIR"));
+        map.put("Birthday", Collections.unmodifiableMap(birthday));
+
+        Map<String, List<String>> anniversary = new LinkedHashMap<>();
+        anniversary.put("VENUE", Arrays.asList("PRIVATE ROOM", "EVENT SPACE"));
+        anniversary.put("ENTERTAINMENT", Arrays.asList("DJ", "LIVE BAND", "GAMES", "ACTIVITIES"));
+        anniversary.put("FOOD AND BEVERAGE", Arrays.asList("BUFFET", "PLATED MEAL"));
+        anniversary.put("PHOTOGRAPHY", Arrays.asList("PROFESSIONAL PHOTOGRAPHER", "PHOTO BOOTH"));
+        anniversary.put("ADD-ONS", Arrays.asList("PRE - ANNIVERSARY SHOOT", "PROGRAM HOST"));
+        anniversary.put("DECORATIONS AND THEME", Arrays.asList("BALLOONS", "BANNERS", "THEMED DECOR", "INVITATIONS", "SOUVENIR"));
+        map.put("Anniversary", Collections.unmodifiableMap(anniversary));
+        
+        Map<String, List<String>> burial = new LinkedHashMap<>();
+        burial.put("VENUE", Arrays.asList("HOME", "CEMETERY"));
+        burial.put("TRANSPORTATION", Arrays.asList("HEARSE", "LIMOUSINE"));
+        burial.put("FLORAL ARRANGEMENTS", Arrays.asList("FUNERAL FLOWERS", "WREATH"));
+        burial.put("CASKET", Arrays.asList("KIDS", "SMALL", "MEDIUM", "LARGE", "X - LARGE", "2X - LARGE"));
+        map.put("Burial", Collections.unmodifiableMap(burial));
+
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static final int MAX_INCLUSIONS = 10;
+    private static final int ANALYTICS_MONTHS = 24;
+    private static final int SEARCH_LIMIT = 20;
+    private static final int LIST_WAVE = 1 << 16;
+    private static final int BULK_CONFLICTS_SHOWN = 3;
+    private static final int SUGGESTED_DATES = 5;
+    private static final int ANALYTICS_LOCATIONS = 10;
+    private static final int FEED_BATCH = 256;
+
+    static class InclusionCatalog {
+        private static final InclusionCatalog EMPTY = new InclusionCatalog(Collections.emptyMap());
+        private static final Map<String, InclusionCatalog> BY_CATEGORY = compileAll();
+
+        private final String[] groupNames;
+        private final int[] groupStart;
+        private final long[] groupMasks;
+        private final String[] items;
+        private final Map<String, Integer> ordinals = new HashMap<>();
+
+        private InclusionCatalog(Map<String, List<String>> groups) {
+            groupNames = groups.keySet().toArray(new String[0]);
+            groupStart = new int[groupNames.length + 1];
+            groupMasks = new long[groupNames.length];
+            List<String> flattened = new ArrayList<>();
+            for (int g = 0; g < groupNames.length; g++) {
+                groupStart[g] = flattened.size();
+                for (String item : groups.get(groupNames[g])) {
+                    if (flattened.size() == Long.SIZE) {
+                        throw new IllegalStateException("A category can define at most 64 inclusions");
+                    }
+                    groupMasks[g] |= 1L << flattened.size();
+                    ordinals.putIfAbsent(item, flattened.size());
+                    flattened.add(item);
+                }
+            }
+            groupStart[groupNames.length] = flattened.size();
+            items = flattened.toArray(new String[0]);
+        }
+
+        private static Map<String, InclusionCatalog> compileAll() {
+            Map<String, InclusionCatalog> compiled = new HashMap<>();
+            for (Map.Entry<String, Map<String, List<String>>> entry : CATEGORY_INCLUSIONS.entrySet()) {
+                compiled.put(entry.getKey(), new InclusionCatalog(entry.getValue()));
+            }
+            return compiled;
+        }
+
+        public static InclusionCatalog forCategory(String category) {
+            return category == null ? EMPTY : BY_CATEGORY.getOrDefault(category, EMPTY);
+        }
+
+        public int size() { return items.length; }
+        public int groupCount() { return groupNames.length; }
+        public String groupName(int group) { return groupNames[group]; }
+        public int groupStart(int group) { return groupStart[group]; }
+        public int groupEnd(int group) { return groupStart[group + 1]; }
+        public long groupMask(int group) { return groupMasks[group]; }
+        public String item(int ordinal) { return items[ordinal]; }
+
+        public int ordinalOf(String item) {
+            Integer ordinal = ordinals.get(item);
+            return ordinal == null ? -1 : ordinal;
+        }
+
+        public long maskOf(List<String> selected) {
+            long mask = 0;
+            for (String item : selected) {
+                int ordinal = ordinalOf(item);
+                if (ordinal >= 0) mask |= 1L << ordinal;
+            }
+            return mask;
+        }
+
+        public List<String> itemsOf(long mask) {
+            List<String> selected = new ArrayList<>(Long.bitCount(mask));
+            for (long bits = mask; bits != 0; bits &= bits - 1) {
+                int ordinal = Long.numberOfTrailingZeros(bits);
+                if (ordinal < items.length) selected.add(items[ordinal]);
+            }
+            return selected;
+        }
+    }
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static int parseEpochDay(String date) {
+        if (date == null || date.length() != 10) return NO_DATE;
+        try {
+            return (int) LocalDate.parse(date).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return NO_DATE;
+        }
+    }
+
+    private static final int NO_TIME = -1;
+
+    private static int parseMinuteOfDay(String time) {
+        if (time == null || time.length() != 5 || time.charAt(2) != ':') return NO_TIME;
+        int hours = digits(time, 0);
+        int minutes = digits(time, 3);
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) return NO_TIME;
+        return hours * 60 + minutes;
+    }
+
+    private static int digits(String text, int start) {
+        char high = text.charAt(start);
+        char low = text.charAt(start + 1);
+        if (high < '0' || high > '9' || low < '0' || low > '9') return -1;
+        return (high - '0') * 10 + (low - '0');
+    }
+
+    static String formatMinuteOfDay(int minuteOfDay) {
+        if (minuteOfDay == NO_TIME) return "";
+        int hours = minuteOfDay / 60;
+        int minutes = minuteOfDay % 60;
+        return new String(new char[] {
+            (char) ('0' + hours / 10), (char) ('0' + hours % 10), ':', (char) ('0' + minutes / 10), (char) ('0' + minutes % 10)
+        });
+    }
+
+    private static int categoryOrdinal(String category) {
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i].equals(category)) return i;
+        }
+        return -1;
+    }
+
+    private static String formatRow(int id, String title, String date, String time, String location, String category) {
+        String shortTitle = title.length() > 25 ? title.substring(0, 22) + "..." : title;
+        String displayCategory = category.isEmpty() ? "None" : category;
+        return String.format("| %-5d | %-25s | %-10s | %-5s | %-15s | %-15s |",
+                id,
+                shortTitle,
+                date,
+                time,
+                location,
+                displayCategory
+        );
+    }
+
+    final EventStore store;
+    private final EventJournal journal;
+    private final ColumnarArchive archive;
+    private final Scanner scanner;
+    private final PrintStream out;
+    private boolean deferDurability;
+    // the id given by this session's most recent add command
+    private int lastAddedId;
+    private long pendingJournalSeq;
+    final AtomicInteger idCounter;
+    private final boolean ownsResources;
+    private final Metrics metrics;
+    private final Analytics analytics;
+    private final SearchIndex searchIndex;
+    private final ChangeFeed feed;
+
+    static class IntIntMap {
+        private static final int EMPTY = Integer.MIN_VALUE;
+
+        private int[] keys;
+        private int[] values;
+        private int size;
+
+        public IntIntMap() {
+            this(16);
+        }
+
+        public IntIntMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private int slotOf(int key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        public int get(int key, int missing) {
+            int slot = slotOf(key);
+            return keys[slot] == EMPTY ? missing : values[slot];
+        }
+
+        public boolean containsKey(int key) {
+            return keys[slotOf(key)] != EMPTY;
+        }
+
+        // for an optimistic reader racing a writer: it never throws or spins, but its answer means something
+        // only once the reader has validated that no write overlapped the call
+        public int getRacy(int key, int missing) {
+            int[] k = keys;
+            int[] v = values;
+            int mask = k.length - 1;
+            int slot = mix(key) & mask;
+            for (int probes = 0; probes < k.length; probes++) {
+                int found = k[slot];
+                if (found == EMPTY) return missing;
+                if (found == key) return slot < v.length ? v[slot] : missing;
+                slot = (slot + 1) & mask;
+            }
+            return missing;
+        }
+
+        public IntIntMap copy() {
+            IntIntMap copy = new IntIntMap(1);
+            copy.keys = keys.clone();
+            copy.values = values.clone();
+            copy.size = size;
+            return copy;
+        }
+
+        public void put(int key, int value) {
+            int slot = slotOf(key);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+                if (size * 4 > keys.length * 3) {
+                    values[slot] = value;
+                    resize(keys.length << 1);
+                    return;
+                }
+            }
+            values[slot] = value;
+        }
+
+        public int remove(int key, int missing) {
+            int mask = keys.length - 1;
+            int slot = slotOf(key);
+            if (keys[slot] == EMPTY) return missing;
+            int removed = values[slot];
+            size--;
+            // backward-shift deletion keeps probe chains intact without tombstones
+            int next = (slot + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = mix(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    keys[slot] = keys[next];
+                    values[slot] = values[next];
+                    slot = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[slot] = EMPTY;
+            return removed;
+        }
+
+        public int size() { return size; }
+
+        public void clear() {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        public interface Entry {
+            void accept(int key, int value);
+        }
+
+        public void forEach(Entry action) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) action.accept(keys[slot], values[slot]);
+            }
+        }
+
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = slotOf(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    private static final Comparator<Event> SCHEDULE_ORDER = Comparator
+            .comparingInt(Event::getEpochDay)
+            .thenComparingInt(Event::getMinuteOfDay)
+            .thenComparingInt(Event::getId);
+
+    private interface StoreListener {
+        void added(Event event);
+        void replaced(Event before, Event after);
+        void removed(Event event);
+
+        // called by the writer after it has released the store's write lock, once per write
+        default void committed() {}
+
+        // a bulk change reports its events between these two calls, all under one hold of the write lock
+        default void bulkStarted() {}
+        default void bulkFinished() {}
+    }
+
+    static class VenueSchedule {
+        private static final int MINUTES_PER_DAY = 24 * 60;
+        // the range parseEpochDay accepts
+        private static final int FIRST_DAY = (int) LocalDate.of(0, 1, 1).toEpochDay();
+        private static final int LAST_DAY = (int) LocalDate.of(9999, 12, 31).toEpochDay();
+        // minutes a booking holds its venue, then the turnaround before the next one may start, in CATEGORIES order
+        private static final int[] DURATION = { 240, 300, 180 };
+        private static final int[] BUFFER = { 60, 60, 120 };
+        private static volatile int longest = longestSpan();
+
+        // each venue's bookings in schedule order, and the days they hold it. The store changes both only under its
+        // write lock; the sets are concurrent so that checks can read them without a lock and still only ever meet
+        // well-formed bookings, while the day bitmaps are read under the read lock
+        private final Map<String, Venue> venues = new ConcurrentHashMap<>();
+
+        private static final class Venue {
+            final ConcurrentSkipListSet<Event> bookings = new ConcurrentSkipListSet<>(SCHEDULE_ORDER);
+            final DayBitmap heldDays = new DayBitmap();
+        }
+
+        // one bit per day on which the venue is held at any minute, over the span of days its bookings reach so far
+        private static final class DayBitmap {
+            private long[] words = new long[0];
+            // the word holding bit 0 of words, counted in days from FIRST_DAY
+            private int firstWord;
+
+            void set(int firstDay, int lastDay) {
+                int first = Math.max(firstDay, FIRST_DAY) - FIRST_DAY;
+                int last = Math.min(lastDay, LAST_DAY) - FIRST_DAY;
+                if (first > last) return;
+                cover(first >>> 6, last >>> 6);
+                for (int bit = first; bit <= last; bit++) {
+                    words[(bit >>> 6) - firstWord] |= 1L << bit;
+                }
+            }
+
+            void clear(int day) {
+                if (day < FIRST_DAY || day > LAST_DAY) return;
+                int bit = day - FIRST_DAY;
+                int word = (bit >>> 6) - firstWord;
+                if (word >= 0 && word < words.length) words[word] &= ~(1L << bit);
+            }
+
+            private long word(int word) {
+                int index = word - firstWord;
+                return index >= 0 && index < words.length ? words[index] : 0L;
+            }
+
+            // grows the span to take in the words given, at least doubling it so a venue booked day after day
+            // copies its bitmap only a logarithmic number of times
+            private void cover(int fromWord, int toWord) {
+                if (words.length == 0) {
+                    words = new long[toWord - fromWord + 1];
+                    firstWord = fromWord;
+                    return;
+                }
+                int lastWord = firstWord + words.length - 1;
+                if (fromWord >= firstWord && toWord <= lastWord) return;
+                int maxWord = (LAST_DAY - FIRST_DAY) >>> 6;
+                int newFirst = fromWord < firstWord ? Math.max(0, Math.min(fromWord, firstWord - words.length)) : firstWord;
+                int newLast = toWord > lastWord ? Math.min(maxWord, Math.max(toWord, lastWord + words.length)) : lastWord;
+                long[] grown = new long[newLast - newFirst + 1];
+                System.arraycopy(words, 0, grown, firstWord - newFirst, words.length);
+                words = grown;
+                firstWord = newFirst;
+            }
+
+            // free days are the clear bits: each word is inverted and its free days taken with numberOfTrailingZeros,
+            // so a fully booked word skips 64 days at once
+            int[] clearDays(int fromEpochDay, int toEpochDay, int limit) {
+                int bit = Math.max(fromEpochDay, FIRST_DAY) - FIRST_DAY;
+                int last = Math.min(toEpochDay, LAST_DAY) - FIRST_DAY;
+                int[] days = new int[Math.max(0, Math.min(limit, Math.min(last - bit + 1, 1024)))];
+                int count = 0;
+                while (bit <= last && count < limit) {
+                    int word = bit >>> 6;
+                    long free = ~word(word) & (-1L << bit);
+                    if (free == 0) {
+                        bit = (word + 1) << 6;
+                        continue;
+                    }
+                    int next = (word << 6) + Long.numberOfTrailingZeros(free);
+                    if (next > last) break;
+                    if (count == days.length) days = Arrays.copyOf(days, days.length * 2);
+                    days[count++] = next + FIRST_DAY;
+                    bit = next + 1;
+                }
+                return Arrays.copyOf(days, count);
+            }
+
+            int countClear(int fromEpochDay, int toEpochDay) {
+                int first = Math.max(fromEpochDay, FIRST_DAY) - FIRST_DAY;
+                int last = Math.min(toEpochDay, LAST_DAY) - FIRST_DAY;
+                if (first > last) return 0;
+                // only words inside the span can hold booked days
+                int fromWord = Math.max(first >>> 6, firstWord);
+                int toWord = Math.min(last >>> 6, firstWord + words.length - 1);
+                int free = last - first + 1;
+                for (int word = fromWord; word <= toWord; word++) {
+                    long booked = word(word);
+                    if (word == first >>> 6) booked &= -1L << first;
+                    if (word == last >>> 6) booked &= -1L >>> (63 - (last & 63));
+                    free -= Long.bitCount(booked);
+                }
+                return free;
+            }
+        }
+
+        public static void configure(String spec) {
+            for (String entry : spec.split(",")) {
+                int equals = entry.indexOf('=');
+                int category = equals < 0 ? -1 : categoryOrdinal(entry.substring(0, equals).trim());
+                String[] minutes = equals < 0 ? new String[0] : entry.substring(equals + 1).split("\\+", -1);
+                int duration = minutes.length > 0 ? parseMinutes(minutes[0]) : -1;
+                int buffer = minutes.length > 1 ? parseMinutes(minutes[1]) : category < 0 ? -1 : BUFFER[category];
+                if (category < 0 || minutes.length > 2 || duration <= 0 || buffer < 0) {
+                    throw new IllegalArgumentException("Expected Category=minutes[+turnaround] but found '" + entry.trim() + "'.");
+                }
+                DURATION[category] = duration;
+                BUFFER[category] = buffer;
+            }
+            longest = longestSpan();
+        }
+
+        private static int parseMinutes(String text) {
+            try {
+                return Integer.parseInt(text.trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private static int longestSpan() {
+            int span = 0;
+            for (int i = 0; i < DURATION.length; i++) {
+                span = Math.max(span, DURATION[i] + BUFFER[i]);
+            }
+            return span;
+        }
+
+        public static int duration(Event event) {
+            int category = event.getCategoryOrdinal();
+            return category >= 0 ? DURATION[category] : longest;
+        }
+
+        public static int buffer(Event event) {
+            int category = event.getCategoryOrdinal();
+            return category >= 0 ? BUFFER[category] : 0;
+        }
+
+        public static long start(Event event) {
+            return (long) event.getEpochDay() * MINUTES_PER_DAY + Math.max(event.getMinuteOfDay(), 0);
+        }
+
+        // the end of the turnaround, when the venue is free again
+        public static long end(Event event) {
+            return start(event) + duration(event) + buffer(event);
+        }
+
+        public static String format(long minute) {
+            return LocalDate.ofEpochDay(Math.floorDiv(minute, MINUTES_PER_DAY)) + " " + formatMinuteOfDay(Math.floorMod(minute, MINUTES_PER_DAY));
+        }
+
+        private static String venueOf(Event event) {
+            return venueKey(event.getLocation());
+        }
+
+        // venues match ignoring case and surrounding spaces
+        public static String venueKey(String location) {
+            return location.trim().toLowerCase(Locale.ROOT);
+        }
+
+        private static boolean schedulable(Event event) {
+            return event.getEpochDay() != NO_DATE && event.getLocation() != null;
+        }
+
+        private static int firstDay(Event event) {
+            return (int) Math.floorDiv(start(event), MINUTES_PER_DAY);
+        }
+
+        // a booking late in the evening holds the venue into the next day as well
+        private static int lastDay(Event event) {
+            return (int) Math.floorDiv(end(event) - 1, MINUTES_PER_DAY);
+        }
+
+        public void add(Event event) {
+            if (!schedulable(event)) return;
+            Venue venue = venues.computeIfAbsent(venueOf(event), key -> new Venue());
+            venue.bookings.add(event);
+            venue.heldDays.set(firstDay(event), lastDay(event));
+        }
+
+        public void remove(Event event) {
+            if (!schedulable(event)) return;
+            Venue venue = venues.get(venueOf(event));
+            if (venue == null || !venue.bookings.remove(event)) return;
+            if (venue.bookings.isEmpty()) {
+                venues.remove(venueOf(event));
+                return;
+            }
+            // another booking may hold the venue on some of the same days, so each day is cleared only if none does
+            for (int day = firstDay(event); day <= lastDay(event); day++) {
+                if (!held(venue.bookings, day)) venue.heldDays.clear(day);
+            }
+        }
+
+        private static boolean held(ConcurrentSkipListSet<Event> bookings, int day) {
+            long dayStart = (long) day * MINUTES_PER_DAY;
+            long from = dayStart - longest;
+            Event probe = Event.probe((int) Math.floorDiv(from, MINUTES_PER_DAY), Math.floorMod(from, MINUTES_PER_DAY), Integer.MIN_VALUE);
+            for (Event event : bookings.tailSet(probe, true)) {
+                if (start(event) >= dayStart + MINUTES_PER_DAY) return false;
+                if (end(event) > dayStart) return true;
+            }
+            return false;
+        }
+
+        public Event conflict(Event candidate) {
+            return schedulable(candidate) ? conflict(candidate, start(candidate), candidate.getId()) : null;
+        }
+
+        private Event conflict(Event candidate, long start, int excludeId) {
+            Venue venue = venues.get(venueOf(candidate));
+            if (venue == null) return null;
+            long end = start + duration(candidate) + buffer(candidate);
+            // nothing that starts more than the longest span earlier can still hold the venue, so only
+            // bookings starting in [start - longest, end) are visited: O(log n + k) per check
+            long from = start - longest;
+            Event probe = Event.probe((int) Math.floorDiv(from, MINUTES_PER_DAY), Math.floorMod(from, MINUTES_PER_DAY), Integer.MIN_VALUE);
+            for (Event event : venue.bookings.tailSet(probe, true)) {
+                long bookedStart = start(event);
+                if (bookedStart >= end) break;
+                if (event.getId() != excludeId && end(event) > start) return event;
+            }
+            return null;
+        }
+
+        // the first start at or after the candidate's own at which its venue is free for the whole booking
+        public long nextFreeStart(Event candidate) {
+            long start = start(candidate);
+            for (Event booked = conflict(candidate, start, candidate.getId()); booked != null; booked = conflict(candidate, start, candidate.getId())) {
+                start = end(booked);
+            }
+            return start;
+        }
+
+        // days in [fromEpochDay, toEpochDay] on which no booking holds the venue at any minute, in order
+        public int[] freeDays(String location, int fromEpochDay, int toEpochDay, int limit) {
+            Venue venue = venues.get(venueKey(location));
+            return (venue == null ? new DayBitmap() : venue.heldDays).clearDays(fromEpochDay, toEpochDay, limit);
+        }
+
+        public int countFreeDays(String location, int fromEpochDay, int toEpochDay) {
+            Venue venue = venues.get(venueKey(location));
+            return (venue == null ? new DayBitmap() : venue.heldDays).countClear(fromEpochDay, toEpochDay);
+        }
+
+        public void clear() {
+            venues.clear();
+        }
+    }
+
+    // an immutable, point-in-time view of the live events in schedule order. Each write publishes a new one
+    // that shares every node off the path it changed, so readers iterate without locks and never see a
+    // half-applied change
+    static final class EventSnapshot implements Iterable<Event> {
+        private static final EventSnapshot EMPTY = new EventSnapshot(0, null, 0);
+        // a scan hands each task at least this many events, so a short range runs as a single task
+        static final int SCAN_GRAIN = 1 << 13;
+
+        // a treap node; the heap priority is a hash of the event id, so a node holds nothing but links.
+        // Links are only ever set while a tree is being built, before the snapshot holding it is published
+        private static final class Node {
+            final Event event;
+            Node left;
+            Node right;
+
+            Node(Event event, Node left, Node right) {
+                this.event = event;
+                this.left = left;
+                this.right = right;
+            }
+        }
+
+        // one calendar month's events, a partition in a treap of its own. The months form a treap too, keyed by
+        // month with a hash of it as priority, so a change copies one path through each and shares the rest
+        private static final class Month {
+            final int key;
+            final Node events;
+            final int size;
+            Month left;
+            Month right;
+
+            Month(int key, Node events, int size, Month left, Month right) {
+                this.key = key;
+                this.events = events;
+                this.size = size;
+                this.left = left;
+                this.right = right;
+            }
+        }
+
+        // a run of days in a scanned range and the snapshot's events on them. The partitions of a range tile it:
+        // one per month that holds events, each running from the day after the previous one ends to the end of
+        // its month, and the last to the end of the range
+        public static final class Partition {
+            private final Month months;
+            private final int firstDay;
+            private final int lastDay;
+            private final int size;
+
+            private Partition(Month months, int firstDay, int lastDay, int size) {
+                this.months = months;
+                this.firstDay = firstDay;
+                this.lastDay = lastDay;
+                this.size = size;
+            }
+
+            public int firstDay() { return firstDay; }
+            public int lastDay() { return lastDay; }
+            public int size() { return size; }
+
+            public Iterable<Event> events() {
+                Event low = Event.probe(firstDay, Integer.MIN_VALUE, Integer.MIN_VALUE);
+                return () -> new RangeIterator(months, low, lastDay);
+            }
+        }
+
+        private final long version;
+        private final Month months;
+        private final int size;
+
+        private EventSnapshot(long version, Month months, int size) {
+            this.version = version;
+            this.months = months;
+            this.size = size;
+        }
+
+        public long version() { return version; }
+        public int size() { return size; }
+        public boolean isEmpty() { return size == 0; }
+
+        public EventSnapshot with(Event event) {
+            return new EventSnapshot(version + 1, added(months, event), size + 1);
+        }
+
+        public EventSnapshot without(Event event) {
+            return new EventSnapshot(version + 1, removed(months, event), size - 1);
+        }
+
+        public EventSnapshot replacing(Event current, Event updated) {
+            return new EventSnapshot(version + 1, added(removed(months, current), updated), size);
+        }
+
+        public EventSnapshot cleared() {
+            return new EventSnapshot(version + 1, null, 0);
+        }
+
+        // many changes as one version; past a sixteenth of the snapshot a single rebuilding pass beats path copies
+        public EventSnapshot changing(List<Event> removals, List<Event> additions) {
+            int changes = removals.size() + additions.size();
+            int resultSize = size - removals.size() + additions.size();
+            if (changes <= Math.max(64, size >>> 4)) {
+                Month changed = months;
+                for (Event event : removals) changed = removed(changed, event);
+                for (Event event : additions) changed = added(changed, event);
+                return new EventSnapshot(version + 1, changed, resultSize);
+            }
+            Set<Event> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+            gone.addAll(removals);
+            List<Event> added = new ArrayList<>(additions);
+            added.sort(SCHEDULE_ORDER);
+            List<Event> merged = new ArrayList<>(resultSize);
+            int next = 0;
+            for (Event event : this) {
+                if (gone.contains(event)) continue;
+                while (next < added.size() && SCHEDULE_ORDER.compare(added.get(next), event) < 0) merged.add(added.get(next++));
+                merged.add(event);
+            }
+            while (next < added.size()) merged.add(added.get(next++));
+            return new EventSnapshot(version + 1, build(merged), resultSize);
+        }
+
+        // the partitions from events already in schedule order, each month's treap built in one pass
+        private static Month build(List<Event> sorted) {
+            ArrayDeque<Month> spine = new ArrayDeque<>();
+            int start = 0;
+            while (start < sorted.size()) {
+                int key = monthOf(sorted.get(start).getEpochDay());
+                int end = start + 1;
+                while (end < sorted.size() && monthOf(sorted.get(end).getEpochDay()) == key) end++;
+                Month month = new Month(key, buildEvents(sorted.subList(start, end)), end - start, null, null);
+                Month below = null;
+                while (!spine.isEmpty() && above(key, spine.peek().key)) {
+                    below = spine.pop();
+                }
+                month.left = below;
+                if (!spine.isEmpty()) spine.peek().right = month;
+                spine.push(month);
+                start = end;
+            }
+            return spine.peekLast();
+        }
+
+        // a treap from events already in schedule order in one pass, keeping its right spine on a stack
+        private static Node buildEvents(List<Event> sorted) {
+            ArrayDeque<Node> spine = new ArrayDeque<>();
+            for (Event event : sorted) {
+                Node node = new Node(event, null, null);
+                Node below = null;
+                while (!spine.isEmpty() && above(event, spine.peek().event)) {
+                    below = spine.pop();
+                }
+                node.left = below;
+                if (!spine.isEmpty()) spine.peek().right = node;
+                spine.push(node);
+            }
+            return spine.peekLast();
+        }
+
+        @Override
+        public Iterator<Event> iterator() {
+            return new RangeIterator(months, null, Integer.MAX_VALUE);
+        }
+
+        public Iterable<Event> between(int fromEpochDay, int toEpochDay) {
+            Event low = Event.probe(fromEpochDay, Integer.MIN_VALUE, Integer.MIN_VALUE);
+            return () -> new RangeIterator(months, low, toEpochDay);
+        }
+
+        // the range cut into partitions, in date order; empty when no month in it holds events
+        public List<Partition> partitions(int fromEpochDay, int toEpochDay) {
+            List<Month> touched = new ArrayList<>();
+            collect(months, monthOf(fromEpochDay), monthOf(toEpochDay), touched);
+            List<Partition> partitions = new ArrayList<>(touched.size());
+            int start = fromEpochDay;
+            for (int i = 0; i < touched.size(); i++) {
+                Month month = touched.get(i);
+                int end = i == touched.size() - 1 ? toEpochDay : (int) Math.min(toEpochDay, lastDayOf(month.key));
+                partitions.add(new Partition(months, start, end, month.size));
+                start = end + 1;
+            }
+            return partitions;
+        }
+
+        private static void collect(Month month, int firstKey, int lastKey, List<Month> touched) {
+            if (month == null) return;
+            if (month.key > firstKey) collect(month.left, firstKey, lastKey, touched);
+            if (month.key >= firstKey && month.key <= lastKey) touched.add(month);
+            if (month.key < lastKey) collect(month.right, firstKey, lastKey, touched);
+        }
+
+        private static long lastDayOf(int month) {
+            return LocalDate.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1, 1).plusMonths(1).toEpochDay() - 1;
+        }
+
+        // runs the task over runs of neighbouring partitions in parallel on the common pool and combines the
+        // results in date order; the partitions must not be empty
+        public static <T> T scan(List<Partition> partitions, Function<Partition, T> task, BinaryOperator<T> combine) {
+            long[] ends = new long[partitions.size() + 1];
+            for (int i = 0; i < partitions.size(); i++) {
+                ends[i + 1] = ends[i] + partitions.get(i).size;
+            }
+            return ForkJoinPool.commonPool().invoke(new Scan<>(partitions, ends, 0, partitions.size(), task, combine));
+        }
+
+        private static final class Scan<T> extends RecursiveTask<T> {
+            private static final long serialVersionUID = 1L;
+
+            private final List<Partition> partitions;
+            // ends[i] is the number of events in the partitions before the i-th
+            private final long[] ends;
+            private final int from;
+            private final int to;
+            private final Function<Partition, T> task;
+            private final BinaryOperator<T> combine;
+
+            Scan(List<Partition> partitions, long[] ends, int from, int to, Function<Partition, T> task, BinaryOperator<T> combine) {
+                this.partitions = partitions;
+                this.ends = ends;
+                this.from = from;
+                this.to = to;
+                this.task = task;
+                this.combine = combine;
+            }
+
+            @Override
+            protected T compute() {
+                if (to - from > 1 && ends[to] - ends[from] > SCAN_GRAIN) {
+                    int middle = (from + to) >>> 1;
+                    Scan<T> later = new Scan<>(partitions, ends, middle, to, task, combine);
+                    later.fork();
+                    T earlier = new Scan<>(partitions, ends, from, middle, task, combine).compute();
+                    return combine.apply(earlier, later.join());
+                }
+                Partition first = partitions.get(from);
+                Partition last = partitions.get(to - 1);
+                return task.apply(to - from == 1 ? first : new Partition(first.months, first.firstDay, last.lastDay, (int) (ends[to] - ends[from])));
+            }
+        }
+
+        private static boolean above(Event a, Event b) {
+            int pa = priority(a.getId());
+            int pb = priority(b.getId());
+            return pa != pb ? pa > pb : a.getId() < b.getId();
+        }
+
+        private static boolean above(int monthA, int monthB) {
+            int pa = priority(monthA);
+            int pb = priority(monthB);
+            return pa != pb ? pa > pb : monthA < monthB;
+        }
+
+        private static int priority(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private static Month find(Month month, int key) {
+            while (month != null && month.key != key) {
+                month = key < month.key ? month.left : month.right;
+            }
+            return month;
+        }
+
+        private static Month added(Month months, Event event) {
+            int key = monthOf(event.getEpochDay());
+            Month month = find(months, key);
+            return month == null ? put(months, new Month(key, new Node(event, null, null), 1, null, null))
+                    : put(months, new Month(key, insert(month.events, event), month.size + 1, month.left, month.right));
+        }
+
+        private static Month removed(Month months, Event event) {
+            int key = monthOf(event.getEpochDay());
+            Month month = find(months, key);
+            if (month == null) throw new IllegalStateException("Event " + event.getId() + " is not in the snapshot");
+            if (month.size == 1) return drop(months, key);
+            return put(months, new Month(key, delete(month.events, event), month.size - 1, month.left, month.right));
+        }
+
+        // puts the month in place of the one with its key, keeping that one's links, or inserts it as a new one
+        private static Month put(Month node, Month month) {
+            if (node == null) return month;
+            if (month.key == node.key) return month;
+            if (month.key < node.key) {
+                Month left = put(node.left, month);
+                if (above(left.key, node.key)) return new Month(left.key, left.events, left.size, left.left, new Month(node.key, node.events, node.size, left.right, node.right));
+                return new Month(node.key, node.events, node.size, left, node.right);
+            }
+            Month right = put(node.right, month);
+            if (above(right.key, node.key)) return new Month(right.key, right.events, right.size, new Month(node.key, node.events, node.size, node.left, right.left), right.right);
+            return new Month(node.key, node.events, node.size, node.left, right);
+        }
+
+        private static Month drop(Month node, int key) {
+            if (node.key == key) return merge(node.left, node.right);
+            if (key < node.key) return new Month(node.key, node.events, node.size, drop(node.left, key), node.right);
+            return new Month(node.key, node.events, node.size, node.left, drop(node.right, key));
+        }
+
+        // every month under a comes before every month under b
+        private static Month merge(Month a, Month b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            if (above(a.key, b.key)) return new Month(a.key, a.events, a.size, a.left, merge(a.right, b));
+            return new Month(b.key, b.events, b.size, merge(a, b.left), b.right);
+        }
+
+        private static Node insert(Node node, Event event) {
+            if (node == null) return new Node(event, null, null);
+            if (SCHEDULE_ORDER.compare(event, node.event) < 0) {
+                Node left = insert(node.left, event);
+                if (above(left.event, node.event)) return new Node(left.event, left.left, new Node(node.event, left.right, node.right));
+                return new Node(node.event, left, node.right);
+            }
+            Node right = insert(node.right, event);
+            if (above(right.event, node.event)) return new Node(right.event, new Node(node.event, node.left, right.left), right.right);
+            return new Node(node.event, node.left, right);
+        }
+
+        private static Node delete(Node node, Event event) {
+            if (node == null) throw new IllegalStateException("Event " + event.getId() + " is not in the snapshot");
+            if (node.event == event) return merge(node.left, node.right);
+            if (SCHEDULE_ORDER.compare(event, node.event) < 0) return new Node(node.event, delete(node.left, event), node.right);
+            return new Node(node.event, node.left, delete(node.right, event));
+        }
+
+        // every event under a sorts before every event under b
+        private static Node merge(Node a, Node b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            if (above(a.event, b.event)) return new Node(a.event, a.left, merge(a.right, b));
+            return new Node(b.event, merge(a, b.left), b.right);
+        }
+
+        // walks the months from the one holding the low bound, and each month's treap in turn. Only the first
+        // month can hold events below the bound, and ranges always end with a whole day, so the end is checked
+        // on the day alone rather than the full order
+        private static final class RangeIterator implements Iterator<Event> {
+            private final Event low;
+            private final int lastDay;
+            private final ArrayDeque<Month> months = new ArrayDeque<>();
+            private final ArrayDeque<Node> path = new ArrayDeque<>();
+
+            RangeIterator(Month root, Event low, int lastDay) {
+                this.low = low;
+                this.lastDay = lastDay;
+                int firstKey = low == null ? Integer.MIN_VALUE : monthOf(low.getEpochDay());
+                for (Month month = root; month != null; ) {
+                    if (month.key >= firstKey) {
+                        months.push(month);
+                        month = month.left;
+                    } else {
+                        month = month.right;
+                    }
+                }
+                descend();
+            }
+
+            private void descend() {
+                while (path.isEmpty() && !months.isEmpty()) {
+                    Month month = months.pop();
+                    for (Month child = month.right; child != null; child = child.left) {
+                        months.push(child);
+                    }
+                    for (Node node = month.events; node != null; ) {
+                        if (low == null || SCHEDULE_ORDER.compare(node.event, low) >= 0) {
+                            path.push(node);
+                            node = node.left;
+                        } else {
+                            node = node.right;
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty() && path.peek().event.getEpochDay() <= lastDay;
+            }
+
+            @Override
+            public Event next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Node node = path.pop();
+                for (Node child = node.right; child != null; child = child.left) {
+                    path.push(child);
+                }
+                if (path.isEmpty()) descend();
+                return node.event;
+            }
+        }
+    }
+
+    // a superseded version of an event, newest first; chains are never modified, so they are read without locks
+    private static final class EventVersion {
+        private final Event event;
+        private final long supersededAt;
+        private final boolean deleted;
+        private final EventVersion previous;
+        private final int depth;
+
+        EventVersion(Event event, long supersededAt, boolean deleted, EventVersion previous) {
+            this.event = event;
+            this.supersededAt = supersededAt;
+            this.deleted = deleted;
+            this.previous = previous;
+            this.depth = previous == null ? 1 : previous.depth + 1;
+        }
+
+        public Event event() { return event; }
+        public long supersededAt() { return supersededAt; }
+        public boolean deleted() { return deleted; }
+        public EventVersion previous() { return previous; }
+
+        // the newest versions only, so a chain never grows past the given depth
+        public EventVersion limit(int maxDepth) {
+            if (depth <= maxDepth) return this;
+            return new EventVersion(event, supersededAt, deleted, maxDepth > 1 ? previous.limit(maxDepth - 1) : null);
+        }
+    }
+
+    static class EventStore {
+        private static final int MIN_TOMBSTONES_TO_COMPACT = 64;
+        private static final int HISTORY_DEPTH = 16;
+        private static final int HISTORY_EVENTS = 4096;
+        private static final int OPTIMISTIC_ATTEMPTS = 64;
+
+        // writers serialise on the stamped lock; id lookups and conflict checks read optimistically and
+        // validate before trusting what they read, and ordered reads take the published snapshot without any lock
+        private final StampedLock lock = new StampedLock();
+        private final List<StoreListener> listeners = new CopyOnWriteArrayList<>();
+        private Event[] slots = new Event[16];
+        private int used;
+        private int tombstones;
+        private volatile EventSnapshot snapshot = EventSnapshot.EMPTY;
+        // superseded versions of the most recently changed events, oldest change first; guarded by the lock
+        private final Map<Integer, EventVersion> history = new LinkedHashMap<>();
+        private final IntIntMap idIndex = new IntIntMap();
+        // booked intervals per venue, turnaround included, archived reservations too, with a bitmap of the days
+        // each venue is held; conflict checks read the intervals and free-date searches the bitmap
+        private final VenueSchedule schedule = new VenueSchedule();
+
+        public void addListener(StoreListener listener) {
+            listeners.add(listener);
+        }
+
+        public Event get(int id) {
+            // the racy probe and the bounds checks cannot fail on a torn read, and nothing read is used until
+            // the stamp proves no write overlapped it
+            for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+                long stamp = lock.tryOptimisticRead();
+                Event[] current = slots;
+                int slot = idIndex.getRacy(id, -1);
+                Event event = slot < 0 || slot >= current.length ? null : current[slot];
+                if (stamp != 0 && lock.validate(stamp)) return event;
+                Thread.onSpinWait();
+            }
+            // only a stream of back-to-back writes gets here
+            long stamp = lock.readLock();
+            try {
+                int slot = idIndex.get(id, -1);
+                return slot < 0 ? null : slots[slot];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public int size() { return snapshot.size(); }
+
+        public EventSnapshot snapshot() { return snapshot; }
+
+        // runs the read while no change is in progress, so listener state and the snapshot agree
+        public <T> T quiesced(Function<EventSnapshot, T> read) {
+            long stamp = lock.readLock();
+            try {
+                return read.apply(snapshot);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // listeners hear of each change under the write lock, then once more after it is released
+        private void unlockWrite(long stamp) {
+            lock.unlockWrite(stamp);
+            for (StoreListener listener : listeners) listener.committed();
+        }
+
+        // superseded versions of the event, newest first, or null when it was never changed
+        public EventVersion history(int id) {
+            long stamp = lock.readLock();
+            try {
+                return history.get(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public boolean isEmpty() { return size() == 0; }
+
+        // the booking whose time at the same venue, turnaround included, overlaps the candidate's, or null.
+        // Checks never lock: one that overlaps a write is repeated, and if writes keep overlapping, the last
+        // answer still stands as advice, since adds and updates check again under the write lock
+        public Event findConflict(Event candidate) {
+            Event booked = null;
+            for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+                long stamp = lock.tryOptimisticRead();
+                booked = schedule.conflict(candidate);
+                if (stamp != 0 && lock.validate(stamp)) break;
+                Thread.onSpinWait();
+            }
+            return booked;
+        }
+
+        public long nextFreeStart(Event candidate) {
+            long start = VenueSchedule.start(candidate);
+            for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+                long stamp = lock.tryOptimisticRead();
+                start = schedule.nextFreeStart(candidate);
+                if (stamp != 0 && lock.validate(stamp)) break;
+                Thread.onSpinWait();
+            }
+            return start;
+        }
+
+        public void add(Event event) {
+            long stamp = lock.writeLock();
+            try {
+                insert(event);
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        public boolean tryAdd(Event event) {
+            long stamp = lock.writeLock();
+            try {
+                if (schedule.conflict(event) != null) return false;
+                insert(event);
+                return true;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private void insert(Event event) {
+            event.freeze();
+            if (used == slots.length) {
+                slots = Arrays.copyOf(slots, slots.length << 1);
+            }
+            slots[used] = event;
+            idIndex.put(event.getId(), used);
+            used++;
+            book(event);
+            snapshot = snapshot.with(event);
+            for (StoreListener listener : listeners) listener.added(event);
+        }
+
+        public boolean remove(Event event) {
+            return remove(event, true);
+        }
+
+        // recovery passes false: it replays changes made in an earlier run, whose history did not survive it
+        public boolean remove(Event event, boolean recordHistory) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = idIndex.get(event.getId(), -1);
+                if (slot < 0 || slots[slot] != event) return false;
+                slots[slot] = null;
+                idIndex.remove(event.getId(), -1);
+                tombstones++;
+                release(event);
+                snapshot = snapshot.without(event);
+                if (recordHistory) remember(event, true);
+                if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones * 2 >= used) {
+                    compact();
+                }
+                for (StoreListener listener : listeners) listener.removed(event);
+                return true;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        // holds the slot of an event that lives on only in the archive
+        public void reserve(Event reservation) {
+            long stamp = lock.writeLock();
+            try {
+                book(reservation);
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private void book(Event event) {
+            schedule.add(event);
+        }
+
+        private void release(Event event) {
+            schedule.remove(event);
+        }
+
+        public boolean replace(Event current, Event updated) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = idIndex.get(current.getId(), -1);
+                if (slot < 0 || slots[slot] != current || updated.getId() != current.getId()) return false;
+                // the event's own slot is skipped by id, so it never conflicts with its earlier version
+                if (schedule.conflict(updated) != null) return false;
+                swap(slot, current, updated);
+                remember(current, false);
+                return true;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        // puts a recovered event in place of the one with its id, or adds it. Recovery only: the change was
+        // checked when it was first made, and it leaves no history
+        public void restore(Event event) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = idIndex.get(event.getId(), -1);
+                if (slot < 0) {
+                    insert(event);
+                } else {
+                    swap(slot, slots[slot], event);
+                }
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private void swap(int slot, Event current, Event updated) {
+            updated.freeze();
+            release(current);
+            slots[slot] = updated;
+            book(updated);
+            snapshot = snapshot.replacing(current, updated);
+            for (StoreListener listener : listeners) listener.replaced(current, updated);
+        }
+
+        private void remember(Event superseded, boolean deleted) {
+            // removing first moves the event to the newest end, so the least recently changed one is evicted
+            EventVersion previous = history.remove(superseded.getId());
+            EventVersion version = new EventVersion(superseded, snapshot.version(), deleted, previous);
+            history.put(superseded.getId(), version.limit(HISTORY_DEPTH));
+            if (history.size() > HISTORY_EVENTS) {
+                Iterator<EventVersion> eldest = history.values().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        // applies every update or none, holding the write lock once: all old slots are released first, so events
+        // moving together never collide with where they were, then each new slot is checked and booked in turn.
+        // Returns the updates that would conflict and what they hit, empty when all fit, or null when one of the
+        // events changed since it was read. Nothing is kept unless commit is set and every update fits
+        public Map<Event, Event> replaceAll(List<Event> currents, List<Event> updateds, boolean commit) {
+            long stamp = lock.writeLock();
+            try {
+                for (int i = 0; i < currents.size(); i++) {
+                    Event current = currents.get(i);
+                    int slot = idIndex.get(current.getId(), -1);
+                    if (slot < 0 || slots[slot] != current || updateds.get(i).getId() != current.getId()) return null;
+                }
+                for (Event current : currents) release(current);
+                Map<Event, Event> conflicts = new LinkedHashMap<>();
+                List<Event> booked = new ArrayList<>(updateds.size());
+                for (Event updated : updateds) {
+                    Event blocker = schedule.conflict(updated);
+                    if (blocker != null) {
+                        conflicts.put(updated, blocker);
+                    } else {
+                        book(updated);
+                        booked.add(updated);
+                    }
+                }
+                if (!commit || !conflicts.isEmpty()) {
+                    for (Event event : booked) release(event);
+                    for (Event current : currents) book(current);
+                    return conflicts;
+                }
+                for (Event updated : updateds) {
+                    updated.freeze();
+                    slots[idIndex.get(updated.getId(), -1)] = updated;
+                }
+                snapshot = snapshot.changing(currents, updateds);
+                for (StoreListener listener : listeners) listener.bulkStarted();
+                try {
+                    for (int i = 0; i < currents.size(); i++) {
+                        remember(currents.get(i), false);
+                        for (StoreListener listener : listeners) listener.replaced(currents.get(i), updateds.get(i));
+                    }
+                } finally {
+                    for (StoreListener listener : listeners) listener.bulkFinished();
+                }
+                return conflicts;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        // removes all of the events or, if any of them changed since it was read, none
+        public boolean removeAll(List<Event> events) {
+            return removeAll(events, false);
+        }
+
+        // like removeAll, but each event's venue slot stays held by a reservation, as the archive needs
+        public boolean retire(List<Event> events) {
+            return removeAll(events, true);
+        }
+
+        private boolean removeAll(List<Event> events, boolean holdSlots) {
+            long stamp = lock.writeLock();
+            try {
+                for (Event event : events) {
+                    int slot = idIndex.get(event.getId(), -1);
+                    if (slot < 0 || slots[slot] != event) return false;
+                }
+                for (Event event : events) {
+                    slots[idIndex.remove(event.getId(), -1)] = null;
+                    tombstones++;
+                    release(event);
+                    if (holdSlots) {
+                        book(Event.reservation(event.getId(), event.getEpochDay(), event.getMinuteOfDay(), event.getLocation(), event.getCategoryOrdinal()));
+                    }
+                }
+                snapshot = snapshot.changing(events, Collections.emptyList());
+                for (StoreListener listener : listeners) listener.bulkStarted();
+                try {
+                    for (Event event : events) {
+                        // an archived event lives on in the archive, so it has nothing to undo
+                        if (holdSlots) {
+                            history.remove(event.getId());
+                        } else {
+                            remember(event, true);
+                        }
+                        for (StoreListener listener : listeners) listener.removed(event);
+                    }
+                } finally {
+                    for (StoreListener listener : listeners) listener.bulkFinished();
+                }
+                if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones * 2 >= used) {
+                    compact();
+                }
+                return true;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        // puts back the newest superseded version, provided it is still the newest and its slot is free
+        public boolean undo(EventVersion expected) {
+            long stamp = lock.writeLock();
+            try {
+                Event restored = expected.event();
+                int id = restored.getId();
+                if (history.get(id) != expected || schedule.conflict(restored) != null) return false;
+                int slot = idIndex.get(id, -1);
+                if (expected.deleted() != (slot < 0)) return false;
+                if (expected.deleted()) {
+                    insert(restored);
+                } else {
+                    swap(slot, slots[slot], restored);
+                }
+                if (expected.previous() == null) {
+                    history.remove(id);
+                } else {
+                    history.put(id, expected.previous());
+                }
+                return true;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        public int[] freeDays(String location, int fromEpochDay, int toEpochDay, int limit) {
+            long stamp = lock.readLock();
+            try {
+                return schedule.freeDays(location, fromEpochDay, toEpochDay, limit);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public int countFreeDays(String location, int fromEpochDay, int toEpochDay) {
+            long stamp = lock.readLock();
+            try {
+                return schedule.countFreeDays(location, fromEpochDay, toEpochDay);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public void clear() {
+            long stamp = lock.writeLock();
+            try {
+                Arrays.fill(slots, 0, used, null);
+                used = 0;
+                tombstones = 0;
+                idIndex.clear();
+                schedule.clear();
+                history.clear();
+                snapshot = snapshot.cleared();
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private void compact() {
+            int target = 0;
+            for (int i = 0; i < used; i++) {
+                Event event = slots[i];
+                if (event == null) continue;
+                if (target != i) {
+                    slots[target] = event;
+                    idIndex.put(event.getId(), target);
+                }
+                target++;
+            }
+            Arrays.fill(slots, target, used, null);
+            used = target;
+            tombstones = 0;
+        }
+    }
+
+    static class EventJournal implements StoreListener, AutoCloseable {
+        // snapshot format; version 2 adds the number of journal records the snapshot covers
+        private static final byte FORMAT_VERSION = 2;
+        private static final byte ADD = 1;
+        private static final byte UPDATE = 2;
+        private static final byte DELETE = 3;
+        // a whole bulk change under one checksum: a count, then each change as a length and a plain record
+        private static final byte BULK = 4;
+        private static final int SNAPSHOT_MAGIC = 0x53454853;
+        private static final int MAX_BATCH = 512;
+        // no real record, even a bulk change of millions of events, comes near this; a length beyond it, or
+        // beyond the end of the file, is a torn tail
+        private static final int MAX_RECORD_BYTES = 1 << 30;
+        static final int SNAPSHOT_EVERY = 10_000;
+        private static final byte[] ROTATE = new byte[0];
+        private static final Pattern FILE_NAME = Pattern.compile("(journal|snapshot)-(\\d+)\\.(log|dat)");
+
+        private final Path dir;
+        private final EventStore store;
+        private final IntSupplier nextId;
+        private final BlockingQueue<byte[]> pending = new LinkedBlockingQueue<>();
+        private final ExecutorService snapshotter = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "event-journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final Object durableLock = new Object();
+        private final Thread writer;
+        private final boolean fresh;
+        private final int recoveredNextId;
+
+        private FileChannel channel;
+        private int generation;
+        private long appendedSeq;
+        private int sinceSnapshot;
+        private long durableSeq;
+        private int writerGeneration;
+        private IOException failure;
+        private volatile boolean closed;
+        // the bulk change being collected; only touched under the store's write lock
+        private ByteArrayOutputStream bulk;
+        private int bulkChanges;
+
+        private EventJournal(Path dir, EventStore store, IntSupplier nextId) throws IOException {
+            this.dir = dir;
+            this.store = store;
+            this.nextId = nextId;
+            Files.createDirectories(dir);
+
+            TreeMap<Integer, Path> journals = new TreeMap<>();
+            TreeMap<Integer, Path> snapshots = new TreeMap<>();
+            try (var files = Files.list(dir)) {
+                files.forEach(file -> {
+                    Matcher m = FILE_NAME.matcher(file.getFileName().toString());
+                    if (m.matches()) {
+                        (m.group(1).equals("journal") ? journals : snapshots).put(Integer.parseInt(m.group(2)), file);
+                    }
+                });
+            }
+            this.fresh = journals.isEmpty() && snapshots.isEmpty();
+
+            int loadedNextId = 1;
+            int fromGeneration = Integer.MIN_VALUE;
+            for (Integer gen : snapshots.descendingKeySet()) {
+                try {
+                    loadedNextId = loadSnapshot(snapshots.get(gen));
+                    fromGeneration = gen;
+                    break;
+                } catch (IOException e) {
+                    store.clear();
+                    appendedSeq = 0;
+                }
+            }
+            int maxId = loadedNextId - 1;
+            for (Map.Entry<Integer, Path> entry : journals.tailMap(fromGeneration, true).entrySet()) {
+                maxId = Math.max(maxId, replay(entry.getValue()));
+            }
+            this.recoveredNextId = maxId + 1;
+            // record numbers carry on across runs: the snapshot's count plus every record replayed after it
+            this.durableSeq = appendedSeq;
+
+            int lastGeneration = Math.max(journals.isEmpty() ? 0 : journals.lastKey(), snapshots.isEmpty() ? 0 : snapshots.lastKey());
+            this.generation = lastGeneration + 1;
+            this.writerGeneration = generation;
+            this.channel = openJournal(generation);
+
+            this.writer = new Thread(this::writeLoop, "event-journal-writer");
+            writer.setDaemon(true);
+            writer.start();
+            store.addListener(this);
+        }
+
+        public static EventJournal open(Path dir, EventStore store, IntSupplier nextId) throws IOException {
+            return new EventJournal(dir, store, nextId);
+        }
+
+        public boolean isFresh() { return fresh; }
+
+        public int getRecoveredNextId() { return recoveredNextId; }
+
+        @Override
+        public void added(Event event) {
+            append(ADD, event);
+        }
+
+        @Override
+        public void replaced(Event before, Event after) {
+            append(UPDATE, after);
+        }
+
+        @Override
+        public void removed(Event event) {
+            append(DELETE, event);
+        }
+
+        @Override
+        public void bulkStarted() {
+            bulk = new ByteArrayOutputStream(1024);
+            bulkChanges = 0;
+        }
+
+        @Override
+        public void bulkFinished() {
+            ByteArrayOutputStream changes = bulk;
+            bulk = null;
+            if (bulkChanges == 0) return;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(5 + changes.size());
+            bytes.write(BULK);
+            bytes.write(ByteBuffer.allocate(4).putInt(bulkChanges).array(), 0, 4);
+            bytes.writeBytes(changes.toByteArray());
+            enqueue(bytes.toByteArray(), bulkChanges);
+        }
+
+        // counts changes, so a bulk record advances it by the changes it holds
+        public synchronized long lastAppendedSeq() {
+            return appendedSeq;
+        }
+
+        private void append(byte type, Event event) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(type);
+                if (type == DELETE) {
+                    out.writeInt(event.getId());
+                } else {
+                    writeEvent(out, event);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (bulk != null) {
+                bulk.write(ByteBuffer.allocate(4).putInt(bytes.size()).array(), 0, 4);
+                bulk.writeBytes(bytes.toByteArray());
+                bulkChanges++;
+                return;
+            }
+            enqueue(bytes.toByteArray(), 1);
+        }
+
+        private static int changesIn(byte[] record) {
+            return record[8] == BULK ? ByteBuffer.wrap(record, 9, 4).getInt() : 1;
+        }
+
+        private synchronized long enqueue(byte[] payload, int changes) {
+            if (closed) throw new IllegalStateException("Journal is closed");
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+            record.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            pending.add(record.array());
+            long seq = appendedSeq += changes;
+            // snapshot cost grows with the store, so wait for at least that many changes to keep it amortised
+            if ((sinceSnapshot += changes) >= Math.max(SNAPSHOT_EVERY, store.size())) {
+                scheduleSnapshot();
+            }
+            return seq;
+        }
+
+        public void awaitDurable(long seq) {
+            synchronized (durableLock) {
+                while (durableSeq < seq && failure == null) {
+                    try {
+                        durableLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (failure != null) throw new UncheckedIOException(failure);
+            }
+        }
+
+        private void scheduleSnapshot() {
+            sinceSnapshot = 0;
+            int snapshotGeneration = ++generation;
+            pending.add(ROTATE);
+            // published events are immutable, so the snapshotter can read this view while writes go on
+            EventSnapshot state = store.snapshot();
+            int snapshotNextId = nextId.getAsInt();
+            long snapshotSeq = appendedSeq;
+            snapshotter.execute(() -> writeSnapshot(snapshotGeneration, state, snapshotNextId, snapshotSeq));
+        }
+
+        private void writeLoop() {
+            List<byte[]> batch = new ArrayList<>(MAX_BATCH);
+            List<ByteBuffer> buffers = new ArrayList<>(MAX_BATCH);
+            try {
+                while (true) {
+                    byte[] first = pending.poll(50, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        if (closed && pending.isEmpty()) break;
+                        continue;
+                    }
+                    batch.add(first);
+                    pending.drainTo(batch, MAX_BATCH - 1);
+                    int changes = 0;
+                    for (byte[] record : batch) {
+                        if (record == ROTATE) {
+                            flush(buffers);
+                            channel.force(false);
+                            channel.close();
+                            channel = openJournal(writerGeneration + 1);
+                            synchronized (durableLock) {
+                                writerGeneration++;
+                                durableLock.notifyAll();
+                            }
+                        } else {
+                            buffers.add(ByteBuffer.wrap(record));
+                            changes += changesIn(record);
+                        }
+                    }
+                    flush(buffers);
+                    channel.force(false);
+                    batch.clear();
+                    synchronized (durableLock) {
+                        durableSeq += changes;
+                        durableLock.notifyAll();
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+            } catch (InterruptedException e) {
+                fail(new IOException("Journal writer interrupted", e));
+            }
+        }
+
+        private void flush(List<ByteBuffer> buffers) throws IOException {
+            if (buffers.isEmpty()) return;
+            ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+            long remaining = 0;
+            for (ByteBuffer buffer : array) remaining += buffer.remaining();
+            while (remaining > 0) {
+                remaining -= channel.write(array);
+            }
+            buffers.clear();
+        }
+
+        private void fail(IOException e) {
+            synchronized (durableLock) {
+                failure = e;
+                durableLock.notifyAll();
+            }
+        }
+
+        private void writeSnapshot(int snapshotGeneration, EventSnapshot state, int snapshotNextId, long snapshotSeq) {
+            Path target = dir.resolve(fileName("snapshot", snapshotGeneration));
+            Path temp = dir.resolve(target.getFileName() + ".tmp");
+            try {
+                CRC32 crc = new CRC32();
+                try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(Channels.newOutputStream(file), crc), 1 << 16));
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeByte(FORMAT_VERSION);
+                    out.writeInt(snapshotNextId);
+                    out.writeLong(snapshotSeq);
+                    out.writeInt(state.size());
+                    for (Event event : state) {
+                        writeEvent(out, event);
+                    }
+                    out.flush();
+                    file.write(ByteBuffer.allocate(4).putInt(0, (int) crc.getValue()));
+                    file.force(true);
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+                synchronized (durableLock) {
+                    while (writerGeneration < snapshotGeneration && failure == null) {
+                        durableLock.wait();
+                    }
+                }
+                try (var files = Files.list(dir)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Matcher m = FILE_NAME.matcher(file.getFileName().toString());
+                        if (m.matches() && Integer.parseInt(m.group(2)) < snapshotGeneration) {
+                            Files.deleteIfExists(file);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("[ERROR] Snapshot " + snapshotGeneration + " failed: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private int loadSnapshot(Path file) throws IOException {
+            byte[] content = Files.readAllBytes(file);
+            if (content.length < 17) throw new IOException("Truncated snapshot " + file);
+            CRC32 crc = new CRC32();
+            crc.update(content, 0, content.length - 4);
+            if ((int) crc.getValue() != ByteBuffer.wrap(content, content.length - 4, 4).getInt()) {
+                throw new IOException("Corrupt snapshot " + file);
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, 0, content.length - 4));
+            if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("Unknown snapshot format " + file);
+            byte version = in.readByte();
+            if (version < 1 || version > FORMAT_VERSION) throw new IOException("Unknown snapshot format " + file);
+            int snapshotNextId = in.readInt();
+            appendedSeq = version >= 2 ? in.readLong() : 0;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                store.add(readEvent(in));
+            }
+            return snapshotNextId;
+        }
+
+        private int replay(Path file) throws IOException {
+            int maxId = 0;
+            long remaining = Files.size(file);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    int expectedCrc;
+                    byte[] payload;
+                    try {
+                        expectedCrc = in.readInt();
+                        remaining -= 8;
+                        if (length < 1 || length > MAX_RECORD_BYTES || length > remaining) break;
+                        remaining -= length;
+                        payload = new byte[length];
+                        in.readFully(payload);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != expectedCrc) break;
+
+                    DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                    int changes = 1;
+                    if (payload[0] == BULK) {
+                        record.readByte();
+                        changes = record.readInt();
+                        for (int i = 0; i < changes; i++) {
+                            byte[] change = new byte[record.readInt()];
+                            record.readFully(change);
+                            maxId = Math.max(maxId, apply(new DataInputStream(new ByteArrayInputStream(change))));
+                        }
+                    } else {
+                        maxId = Math.max(maxId, apply(record));
+                    }
+                    sinceSnapshot += changes;
+                    appendedSeq += changes;
+                }
+            }
+            return maxId;
+        }
+
+        // applies one add, update or delete and returns its event id
+        private int apply(DataInputStream record) throws IOException {
+            byte type = record.readByte();
+            if (type == DELETE) {
+                int id = record.readInt();
+                Event existing = store.get(id);
+                if (existing != null) store.remove(existing, false);
+                return id;
+            }
+            Event event = readEvent(record);
+            store.restore(event);
+            return event.getId();
+        }
+
+        private FileChannel openJournal(int gen) throws IOException {
+            return FileChannel.open(dir.resolve(fileName("journal", gen)), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        private static String fileName(String kind, int gen) {
+            return String.format("%s-%08d.%s", kind, gen, kind.equals("journal") ? "log" : "dat");
+        }
+
+        private static void writeEvent(DataOutputStream out, Event event) throws IOException {
+            out.writeInt(event.getId());
+            writeString(out, event.getTitle());
+            writeString(out, event.getDate());
+            writeString(out, event.getTime());
+            writeString(out, event.getLocation());
+            writeString(out, event.getCategory());
+            out.writeShort(event.getInclusion().size());
+            for (String item : event.getInclusion()) {
+                writeString(out, item);
+            }
+            writeString(out, event.getDescription());
+        }
+
+        private static Event readEvent(DataInputStream in) throws IOException {
+            int id = in.readInt();
+            String title = readString(in);
+            String date = readString(in);
+            String time = readString(in);
+            String location = readString(in);
+            String category = readString(in);
+            int inclusionCount = in.readUnsignedShort();
+            List<String> inclusion = new ArrayList<>(inclusionCount);
+            for (int i = 0; i < inclusionCount; i++) {
+                inclusion.add(readString(in));
+            }
+            String description = readString(in);
+            return new Event(id, title, date, time, location, category, inclusion, description);
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            try {
+                writer.join();
+                snapshotter.shutdown();
+                snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+                channel.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to close the event journal: " + e.getMessage());
+            }
+        }
+    }
+
+    // typed change records in commit order for consumers outside the store. Changes are numbered under the
+    // store's write lock and enter the ring after the writer releases it, so a writer that waits while the
+    // slowest subscriber is a full ring behind holds up no other reader or writer of the store. Writers fill
+    // their own slots and stamp each with its sequence, so none waits for another; each subscriber follows on
+    // its own thread with its own cursor and reads a slot only once it carries the sequence it expects
+    static class ChangeFeed implements StoreListener, AutoCloseable {
+        public static final byte ADD = 1;
+        public static final byte UPDATE = 2;
+        public static final byte DELETE = 3;
+        static final int CAPACITY = 1 << 14;
+        private static final long PRODUCER_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+        public static final class Change {
+            private final long sequence;
+            private final byte type;
+            private final Event before;
+            private final Event after;
+
+            Change(long sequence, byte type, Event before, Event after) {
+                this.sequence = sequence;
+                this.type = type;
+                this.before = before;
+                this.after = after;
+            }
+
+            public long sequence() { return sequence; }
+            public byte type() { return type; }
+            public Event before() { return before; }
+            public Event after() { return after; }
+            public int id() { return after != null ? after.getId() : before.getId(); }
+        }
+
+        // called with up to the batch size of consecutive changes; must not write to the store, whose
+        // writer may be waiting for this very subscriber to catch up
+        public interface Subscriber {
+            void onChanges(List<Change> batch) throws IOException;
+
+            default void close() throws IOException {}
+        }
+
+        private final Change[] ring = new Change[CAPACITY];
+        // the sequence each slot holds; stamped after the slot is written, so a subscriber that sees its
+        // sequence there sees the change
+        private final AtomicLongArray stamps = new AtomicLongArray(CAPACITY);
+        private final AtomicLong sequenced = new AtomicLong();
+        private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+        // numbered changes waiting for ring space; added under the store's write lock, taken by whichever
+        // writer gets to them first once the lock is released
+        private final Queue<Change> staged = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void added(Event event) {
+            publish(ADD, null, event);
+        }
+
+        @Override
+        public void replaced(Event before, Event after) {
+            publish(UPDATE, before, after);
+        }
+
+        @Override
+        public void removed(Event event) {
+            publish(DELETE, event, null);
+        }
+
+        // the number of the latest change, whether or not it has reached the ring yet
+        public long published() {
+            return sequenced.get();
+        }
+
+        // numbering continues after the given sequence; call before the feed is attached to the store
+        public void resumeAt(long sequence) {
+            sequenced.set(sequence);
+        }
+
+        private void publish(byte type, Event before, Event after) {
+            staged.add(new Change(sequenced.incrementAndGet(), type, before, after));
+        }
+
+        @Override
+        public void committed() {
+            // slots are found by sequence, so changes may land in any order; a change only ever waits for
+            // subscribers to pass the one a full ring before it, which every earlier change already has room past
+            for (Change change = staged.poll(); change != null; change = staged.poll()) {
+                long sequence = change.sequence();
+                while (sequence - CAPACITY > slowestPosition()) {
+                    LockSupport.parkNanos(PRODUCER_WAIT_NANOS);
+                }
+                int slot = (int) (sequence & (CAPACITY - 1));
+                ring[slot] = change;
+                stamps.set(slot, sequence);
+                for (Subscription subscription : subscriptions) {
+                    subscription.wake();
+                }
+            }
+        }
+
+        private boolean ready(long sequence) {
+            return stamps.get((int) (sequence & (CAPACITY - 1))) == sequence;
+        }
+
+        private long slowestPosition() {
+            long slowest = Long.MAX_VALUE;
+            for (Subscription subscription : subscriptions) {
+                slowest = Math.min(slowest, subscription.position);
+            }
+            return slowest;
+        }
+
+        // delivers every change published after this call
+        public Subscription subscribe(String name, int batchSize, Subscriber subscriber) {
+            Subscription subscription = new Subscription(name, batchSize, subscriber, sequenced.get());
+            subscriptions.add(subscription);
+            subscription.thread.start();
+            return subscription;
+        }
+
+        @Override
+        public void close() {
+            for (Subscription subscription : subscriptions) {
+                subscription.close();
+            }
+        }
+
+        public final class Subscription implements AutoCloseable {
+            private final String name;
+            private final int batchSize;
+            private final Subscriber subscriber;
+            private final Thread thread;
+            private volatile long position;
+            private volatile boolean waiting;
+            private volatile boolean closing;
+
+            private Subscription(String name, int batchSize, Subscriber subscriber, long position) {
+                this.name = name;
+                this.batchSize = batchSize;
+                this.subscriber = subscriber;
+                this.position = position;
+                this.thread = new Thread(this::deliver, "change-feed-" + name);
+                thread.setDaemon(true);
+            }
+
+            public long position() {
+                return position;
+            }
+
+            private void wake() {
+                if (waiting) LockSupport.unpark(thread);
+            }
+
+            private void deliver() {
+                try {
+                    while (true) {
+                        long from = position;
+                        if (!ready(from + 1)) {
+                            if (closing) break;
+                            waiting = true;
+                            // re-check after announcing, so a stamp racing with the announcement is never missed
+                            if (!ready(from + 1) && !closing) LockSupport.park(this);
+                            waiting = false;
+                            continue;
+                        }
+                        // the slot cannot be reused before this cursor moves past it
+                        List<Change> batch = new ArrayList<>();
+                        for (long sequence = from + 1; batch.size() < batchSize && ready(sequence); sequence++) {
+                            batch.add(ring[(int) (sequence & (CAPACITY - 1))]);
+                        }
+                        subscriber.onChanges(Collections.unmodifiableList(batch));
+                        position = from + batch.size();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("[ERROR] Change feed subscriber " + name + " stopped: " + e.getMessage());
+                } finally {
+                    subscriptions.remove(this);
+                    try {
+                        subscriber.close();
+                    } catch (IOException e) {
+                        System.err.println("[ERROR] Could not close change feed subscriber " + name + ": " + e.getMessage());
+                    }
+                }
+            }
+
+            // delivers what was already published, then stops
+            @Override
+            public void close() {
+                closing = true;
+                LockSupport.unpark(thread);
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // writes the change feed as JSON lines, one change per line, flushed after every batch
+    private static class FeedExport implements ChangeFeed.Subscriber {
+        private static final String[] TYPES = { null, "add", "update", "delete" };
+
+        private final BufferedWriter writer;
+
+        FeedExport(Path file) throws IOException {
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public void onChanges(List<ChangeFeed.Change> batch) throws IOException {
+            StringBuilder line = new StringBuilder(256);
+            for (ChangeFeed.Change change : batch) {
+                line.setLength(0);
+                line.append("{\"seq\": ").append(change.sequence())
+                        .append(", \"type\": \"").append(TYPES[change.type()])
+                        .append("\", \"id\": ").append(change.id());
+                Event event = change.after();
+                if (event != null) {
+                    line.append(", \"title\": ");
+                    quote(line, event.getTitle());
+                    line.append(", \"date\": ");
+                    quote(line, event.getDate());
+                    line.append(", \"time\": ");
+                    quote(line, event.getTime());
+                    line.append(", \"location\": ");
+                    quote(line, event.getLocation());
+                    line.append(", \"category\": ");
+                    quote(line, event.getCategory());
+                    line.append(", \"inclusions\": [");
+                    List<String> inclusions = event.getInclusion();
+                    for (int i = 0; i < inclusions.size(); i++) {
+                        if (i > 0) line.append(", ");
+                        quote(line, inclusions.get(i));
+                    }
+                    line.append("], \"description\": ");
+                    quote(line, event.getDescription());
+                }
+                writer.append(line.append("}\n"));
+            }
+            writer.flush();
+        }
+
+        private static void quote(StringBuilder out, String value) {
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': out.append("\\\""); break;
+                    case '\\': out.append("\\\\"); break;
+                    case '\n': out.append("\\n"); break;
+                    case '\r': out.append("\\r"); break;
+                    case '\t': out.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            out.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.append(c);
+                        }
+                }
+            }
+            out.append('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    private static class ColumnarArchive implements AutoCloseable {
+        private static final int MAGIC = 0x53454843;
+        private static final int VERSION = 1;
+        private static final int HEADER_BYTES = 64;
+        private static final int INITIAL_CAPACITY = 1024;
+        private static final byte DELETED = 1;
+        private static final long DAY_OFFSET = -LocalDate.of(0, 1, 1).toEpochDay();
+
+        // column widths in bytes, in file order
+        private static final int ID = 0;
+        private static final int EPOCH_DAY = 1;
+        private static final int MINUTE = 2;
+        private static final int CATEGORY = 3;
+        private static final int FLAGS = 4;
+        private static final int INCLUSIONS = 5;
+        private static final int TITLE = 6;
+        private static final int LOCATION = 7;
+        private static final int DESCRIPTION = 8;
+        private static final int[] WIDTHS = { 4, 4, 2, 1, 1, 8, 8, 8, 8 };
+
+        private final Path columnsFile;
+        private final FileChannel heap;
+        private volatile MappedByteBuffer heapView;
+        private volatile long heapSize;
+        // writer state: appends, deletes and growth run one at a time under writeLock
+        private final Object writeLock = new Object();
+        private final IntIntMap rowById = new IntIntMap();
+        private MappedByteBuffer columns;
+        private final int[] columnOffsets = new int[WIDTHS.length];
+        private int capacity;
+        private int rowCount;
+        // what readers see, replaced whole on every force, so no reader meets a half-grown map or a remapped file
+        private volatile View view;
+
+        // a published cut of the archive. Rows never move, so row numbers from one view stay good in later ones;
+        // the only in-place change is a row gaining its deleted flag
+        private static final class View {
+            private final ByteBuffer columns;
+            private final int[] columnOffsets;
+            private final int rowCount;
+            private final IntIntMap rowById;
+            private volatile int[] sortedRows;
+
+            View(ByteBuffer columns, int[] columnOffsets, int rowCount, IntIntMap rowById) {
+                this.columns = columns;
+                this.columnOffsets = columnOffsets;
+                this.rowCount = rowCount;
+                this.rowById = rowById;
+            }
+
+            int at(int column, int row) {
+                return columnOffsets[column] + row * WIDTHS[column];
+            }
+        }
+
+        private ColumnarArchive(Path base) throws IOException {
+            this.columnsFile = Paths.get(base + ".cols");
+            Path heapFile = Paths.get(base + ".heap");
+            if (columnsFile.getParent() != null) Files.createDirectories(columnsFile.getParent());
+            this.heap = FileChannel.open(heapFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.heapSize = heap.size();
+
+            if (Files.exists(columnsFile) && Files.size(columnsFile) >= HEADER_BYTES) {
+                try (FileChannel file = FileChannel.open(columnsFile, StandardOpenOption.READ)) {
+                    ByteBuffer header = ByteBuffer.allocate(16);
+                    file.read(header, 0);
+                    header.flip();
+                    if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                        throw new IOException("Not an event archive: " + columnsFile);
+                    }
+                    capacity = header.getInt();
+                    rowCount = header.getInt();
+                }
+                map(columnsFile, capacity);
+            } else {
+                createColumns(columnsFile, INITIAL_CAPACITY);
+                map(columnsFile, INITIAL_CAPACITY);
+            }
+            for (int row = 0; row < rowCount; row++) {
+                if ((columns.get(at(FLAGS, row)) & DELETED) == 0) rowById.put(columns.getInt(at(ID, row)), row);
+            }
+            publish();
+        }
+
+        private void publish() {
+            view = new View(columns, columnOffsets.clone(), rowCount, rowById.copy());
+        }
+
+        public static ColumnarArchive open(Path base) throws IOException {
+            return new ColumnarArchive(base);
+        }
+
+        private static long fileSize(int capacity) {
+            long size = HEADER_BYTES;
+            for (int width : WIDTHS) size += (long) width * capacity;
+            return size;
+        }
+
+        private static void createColumns(Path file, int capacity) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(16).putInt(MAGIC).putInt(VERSION).putInt(capacity).putInt(0);
+                header.flip();
+                channel.write(header, 0);
+                channel.write(ByteBuffer.allocate(1), fileSize(capacity) - 1);
+            }
+        }
+
+        private void map(Path file, int newCapacity) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                columns = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(newCapacity));
+            }
+            capacity = newCapacity;
+            int offset = HEADER_BYTES;
+            for (int column = 0; column < WIDTHS.length; column++) {
+                columnOffsets[column] = offset;
+                offset += WIDTHS[column] * capacity;
+            }
+        }
+
+        private int at(int column, int row) {
+            return columnOffsets[column] + row * WIDTHS[column];
+        }
+
+        public int rowCount() { return view.rowCount; }
+
+        public int[] sortedRows(int fromEpochDay, int toEpochDay) {
+            int[] rows = sortedRows();
+            int from = 0;
+            while (from < rows.length && epochDay(rows[from]) < fromEpochDay) from++;
+            int to = from;
+            while (to < rows.length && epochDay(rows[to]) <= toEpochDay) to++;
+            return from == 0 && to == rows.length ? rows : Arrays.copyOfRange(rows, from, to);
+        }
+
+        public int[] sortedRows() {
+            View current = view;
+            if (current.sortedRows != null) return current.sortedRows;
+            long[] keys = new long[current.rowCount];
+            int count = 0;
+            for (int row = 0; row < current.rowCount; row++) {
+                if (isDeleted(row)) continue;
+                // day offset (22 bits) | minute + 1 (11 bits) | row (30 bits) sorts as a single long
+                long day = epochDay(row) + DAY_OFFSET;
+                keys[count++] = (day << 41) | ((long) (minuteOfDay(row) + 1) << 30) | row;
+            }
+            Arrays.sort(keys, 0, count);
+            int[] rows = new int[count];
+            for (int i = 0; i < count; i++) {
+                rows[i] = (int) (keys[i] & ((1 << 30) - 1));
+            }
+            // racing builders of the same view compute the same array, so whichever lands is fine
+            current.sortedRows = rows;
+            return rows;
+        }
+
+        public int findRow(int id) { return view.rowById.get(id, -1); }
+
+        public int id(int row) { View v = view; return v.columns.getInt(v.at(ID, row)); }
+        public int epochDay(int row) { View v = view; return v.columns.getInt(v.at(EPOCH_DAY, row)); }
+        public int minuteOfDay(int row) { View v = view; return v.columns.getShort(v.at(MINUTE, row)); }
+        public int categoryOrdinal(int row) { View v = view; return v.columns.get(v.at(CATEGORY, row)); }
+        public long inclusionMask(int row) { View v = view; return v.columns.getLong(v.at(INCLUSIONS, row)); }
+        public boolean isDeleted(int row) { View v = view; return (v.columns.get(v.at(FLAGS, row)) & DELETED) != 0; }
+        public String title(int row) { View v = view; return readString(v.columns.getLong(v.at(TITLE, row))); }
+        public String location(int row) { View v = view; return readString(v.columns.getLong(v.at(LOCATION, row))); }
+        public String description(int row) { View v = view; return readString(v.columns.getLong(v.at(DESCRIPTION, row))); }
+
+        public String date(int row) { return LocalDate.ofEpochDay(epochDay(row)).toString(); }
+        public String time(int row) { return formatMinuteOfDay(minuteOfDay(row)); }
+
+        public String category(int row) {
+            int ordinal = categoryOrdinal(row);
+            return ordinal < 0 ? "" : CATEGORIES[ordinal];
+        }
+
+        // appended rows reach readers at the next force
+        public int append(Event event) throws IOException {
+            synchronized (writeLock) {
+                return appendLocked(event);
+            }
+        }
+
+        private int appendLocked(Event event) throws IOException {
+            if (rowCount == capacity) grow();
+            int row = rowCount;
+            columns.putInt(at(ID, row), event.getId());
+            columns.putInt(at(EPOCH_DAY, row), event.getEpochDay());
+            columns.putShort(at(MINUTE, row), (short) event.getMinuteOfDay());
+            columns.put(at(CATEGORY, row), (byte) EventOrganizerConsole.categoryOrdinal(event.getCategory()));
+            columns.put(at(FLAGS, row), (byte) 0);
+            columns.putLong(at(INCLUSIONS, row), event.getInclusionMask());
+            columns.putLong(at(TITLE, row), writeString(event.getTitle()));
+            columns.putLong(at(LOCATION, row), writeString(event.getLocation()));
+            columns.putLong(at(DESCRIPTION, row), writeString(event.getDescription()));
+            rowCount++;
+            columns.putInt(12, rowCount);
+            rowById.put(event.getId(), row);
+            return row;
+        }
+
+        public void markDeleted(int row) {
+            synchronized (writeLock) {
+                columns.put(at(FLAGS, row), (byte) (columns.get(at(FLAGS, row)) | DELETED));
+                // only while the id still maps here, never a later row for it
+                int id = columns.getInt(at(ID, row));
+                if (rowById.get(id, -1) == row) rowById.remove(id, -1);
+            }
+        }
+
+        // makes every append and delete so far durable, then visible to readers
+        public void force() throws IOException {
+            synchronized (writeLock) {
+                heap.force(false);
+                columns.force();
+                publish();
+            }
+        }
+
+        private void grow() throws IOException {
+            int newCapacity = capacity << 1;
+            Path temp = Paths.get(columnsFile + ".tmp");
+            createColumns(temp, newCapacity);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer target = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(newCapacity));
+                target.putInt(12, rowCount);
+                int targetOffset = HEADER_BYTES;
+                for (int column = 0; column < WIDTHS.length; column++) {
+                    int length = WIDTHS[column] * rowCount;
+                    target.put(targetOffset, columns, columnOffsets[column], length);
+                    targetOffset += WIDTHS[column] * newCapacity;
+                }
+                target.force();
+            }
+            heap.force(false);
+            columns.force();
+            Files.move(temp, columnsFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            map(columnsFile, newCapacity);
+        }
+
+        private long writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer record = ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes);
+            record.flip();
+            long offset = heapSize;
+            while (record.hasRemaining()) {
+                heapSize += heap.write(record, heapSize);
+            }
+            return offset;
+        }
+
+        private String readString(long offset) {
+            try {
+                MappedByteBuffer view = heapView;
+                if (view == null || offset + 4 > view.capacity()) view = remapHeap();
+                if (offset + 4 > view.capacity()) return readStringFromChannel(offset);
+                int length = view.getInt((int) offset);
+                if (offset + 4 + length > view.capacity()) return readStringFromChannel(offset);
+                byte[] bytes = new byte[length];
+                view.get((int) offset + 4, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private String readStringFromChannel(long offset) throws IOException {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            heap.read(length, offset);
+            ByteBuffer bytes = ByteBuffer.allocate(length.getInt(0));
+            while (bytes.hasRemaining()) {
+                if (heap.read(bytes, offset + 4 + bytes.position()) < 0) throw new EOFException();
+            }
+            return new String(bytes.array(), StandardCharsets.UTF_8);
+        }
+
+        private synchronized MappedByteBuffer remapHeap() throws IOException {
+            // a single mapping covers the first 2 GB of the heap; anything past that is read positionally
+            heapView = heap.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(heapSize, Integer.MAX_VALUE));
+            return heapView;
+        }
+
+        @Override
+        public void close() {
+            try {
+                synchronized (writeLock) {
+                    heap.force(false);
+                    columns.force();
+                }
+                heap.close();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to close the event archive: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class LatencyHistogram {
+        // 8 linear sub-buckets per power of two keeps every recorded value within 12.5% of its bucket
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray((Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private static int bucketOf(long nanos) {
+            if (nanos < SUB_BUCKETS) return (int) Math.max(0, nanos);
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        private static long lowestOf(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            return (1L << exponent) | ((long) (bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS));
+        }
+
+        public void record(long nanos) {
+            counts.incrementAndGet(bucketOf(nanos));
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long count() { return count.sum(); }
+        public long maxNanos() { return maxNanos.get(); }
+
+        public double meanNanos() {
+            long recorded = count.sum();
+            return recorded == 0 ? 0 : (double) totalNanos.sum() / recorded;
+        }
+
+        public long percentileNanos(double percentile) {
+            long[] snapshot = new long[counts.length()];
+            long recorded = 0;
+            for (int bucket = 0; bucket < snapshot.length; bucket++) {
+                snapshot[bucket] = counts.get(bucket);
+                recorded += snapshot[bucket];
+            }
+            if (recorded == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+            long seen = 0;
+            for (int bucket = 0; bucket < snapshot.length; bucket++) {
+                seen += snapshot[bucket];
+                if (seen >= rank) {
+                    long highest = bucket + 1 < snapshot.length ? lowestOf(bucket + 1) - 1 : Long.MAX_VALUE;
+                    return Math.min(highest, maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+    }
+
+    @Name("hebs.Operation")
+    @Label("Planner Operation")
+    @Category("HEBS Event Organizer")
+    @Description("A store operation and how long it took")
+    private static class OperationEvent extends jdk.jfr.Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+
+        @Label("Events in Store")
+        int storeSize;
+    }
+
+    @Name("hebs.DateConflict")
+    @Label("Date Conflict")
+    @Category("HEBS Event Organizer")
+    @Description("A booking was turned away because its venue is already taken at that time")
+    private static class DateConflictEvent extends jdk.jfr.Event {
+        @Label("Epoch Day")
+        int epochDay;
+
+        @Label("Events in Store")
+        int storeSize;
+    }
+
+    @Name("hebs.StoreSize")
+    @Label("Store Size")
+    @Category("HEBS Event Organizer")
+    @Period("10 s")
+    private static class StoreSizeEvent extends jdk.jfr.Event {
+        @Label("Events in Store")
+        int storeSize;
+    }
+
+    private static class Metrics implements AutoCloseable {
+        public static final int ADD = 0;
+        public static final int UPDATE = 1;
+        public static final int DELETE = 2;
+        public static final int LIST = 3;
+        public static final int RECEIPT = 4;
+        public static final int ARCHIVE = 5;
+        public static final int IMPORT = 6;
+        public static final int RECEIPTS = 7;
+        public static final int SEARCH = 8;
+        public static final int BULK = 9;
+        public static final int FIND_BY_ID = 10;
+        public static final int DATE_CHECK = 11;
+        private static final String[] NAMES = { "add", "update", "delete", "list", "receipt", "archive", "import", "receipts", "search", "bulk", "findEventById", "findConflict" };
+
+        private final LatencyHistogram[] latencies = new LatencyHistogram[NAMES.length];
+        private final LongAdder dateConflicts = new LongAdder();
+        private final IntSupplier storeSize;
+        private final long startedAt = System.nanoTime();
+        private final Runnable storeSizeHook;
+        private ScheduledExecutorService dumper;
+        private Path dumpFile;
+
+        Metrics(IntSupplier storeSize) {
+            this.storeSize = storeSize;
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram();
+            }
+            this.storeSizeHook = () -> {
+                StoreSizeEvent event = new StoreSizeEvent();
+                event.storeSize = storeSize.getAsInt();
+                event.commit();
+            };
+            FlightRecorder.addPeriodicEvent(StoreSizeEvent.class, storeSizeHook);
+        }
+
+        public void record(int operation, long startNanos) {
+            long nanos = System.nanoTime() - startNanos;
+            latencies[operation].record(nanos);
+            if (operation >= FIND_BY_ID) return;
+            OperationEvent event = new OperationEvent();
+            if (event.shouldCommit()) {
+                event.operation = NAMES[operation];
+                event.latency = nanos;
+                event.storeSize = storeSize.getAsInt();
+                event.commit();
+            }
+        }
+
+        public void dateConflict(int epochDay) {
+            dateConflicts.increment();
+            DateConflictEvent event = new DateConflictEvent();
+            if (event.shouldCommit()) {
+                event.epochDay = epochDay;
+                event.storeSize = storeSize.getAsInt();
+                event.commit();
+            }
+        }
+
+        public void print(PrintStream out) {
+            out.println("\n" + "=".repeat(91));
+            out.println("--- OPERATION METRICS ---");
+            out.printf("Events in store: %d   Slot conflicts turned away: %d   Uptime: %ds\n",
+                    storeSize.getAsInt(), dateConflicts.sum(), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt));
+            out.println("-".repeat(91));
+            out.println(String.format("| %-15s | %9s | %9s | %9s | %9s | %9s | %9s |", "Operation", "Count", "Mean us", "p50 us", "p90 us", "p99 us", "Max us"));
+            out.println("-".repeat(91));
+            for (int i = 0; i < NAMES.length; i++) {
+                LatencyHistogram histogram = latencies[i];
+                out.println(String.format("| %-15s | %9d | %9.1f | %9.1f | %9.1f | %9.1f | %9.1f |", NAMES[i], histogram.count(),
+                        histogram.meanNanos() / 1000.0, histogram.percentileNanos(50) / 1000.0, histogram.percentileNanos(90) / 1000.0,
+                        histogram.percentileNanos(99) / 1000.0, histogram.maxNanos() / 1000.0));
+            }
+            out.println("=".repeat(91));
+        }
+
+        public String toJson() {
+            StringBuilder json = new StringBuilder(1024);
+            json.append("{\"time\": \"").append(java.time.Instant.now()).append("\", \"storeSize\": ").append(storeSize.getAsInt())
+                    .append(", \"dateConflicts\": ").append(dateConflicts.sum()).append(", \"operations\": {");
+            for (int i = 0; i < NAMES.length; i++) {
+                LatencyHistogram histogram = latencies[i];
+                if (i > 0) json.append(", ");
+                json.append('"').append(NAMES[i]).append("\": {\"count\": ").append(histogram.count())
+                        .append(", \"meanNanos\": ").append(Math.round(histogram.meanNanos()))
+                        .append(", \"p50Nanos\": ").append(histogram.percentileNanos(50))
+                        .append(", \"p90Nanos\": ").append(histogram.percentileNanos(90))
+                        .append(", \"p99Nanos\": ").append(histogram.percentileNanos(99))
+                        .append(", \"maxNanos\": ").append(histogram.maxNanos()).append('}');
+            }
+            return json.append("}}").toString();
+        }
+
+        public synchronized void dumpEvery(Path file, long seconds) {
+            dumpFile = file;
+            dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleAtFixedRate(this::dump, seconds, seconds, TimeUnit.SECONDS);
+        }
+
+        private synchronized void dump() {
+            // one JSON object per line, so growth of the store can be lined up against latency over time
+            try {
+                Files.write(dumpFile, (toJson() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to write metrics to " + dumpFile + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            FlightRecorder.removePeriodicEvent(storeSizeHook);
+            if (dumper != null) {
+                dumper.shutdownNow();
+                dump();
+            }
+        }
+    }
+
+    static class SearchIndex implements StoreListener {
+        private static final int TITLE = 0;
+        private static final int LOCATION = 10;
+        private static final int DESCRIPTION = 20;
+        private static final int FIELD_MASK = (1 << 10) - 1;
+        private static final int[] WEIGHTS = { 3, 2, 1 };
+
+        // terms first seen since the last merge wait here; past this many (or 1/8 of the vocabulary) they are merged in
+        private static final int MERGE_MIN = 4096;
+
+        // one word of the vocabulary: (event id, term counts in title, location and description, 10 bits each) pairs in id order
+        private static final class Postings {
+            final String term;
+            int[] pairs = new int[2];
+            int used;
+            int live;
+
+            Postings(String term) {
+                this.term = term;
+            }
+
+            // pair position of the id, or -(insertion point) - 1
+            private int find(int id) {
+                int low = 0;
+                int high = used / 2 - 1;
+                while (low <= high) {
+                    int middle = (low + high) >>> 1;
+                    int found = pairs[middle * 2];
+                    if (found < id) low = middle + 1;
+                    else if (found > id) high = middle - 1;
+                    else return middle;
+                }
+                return -low - 1;
+            }
+
+            int get(int id) {
+                int at = find(id);
+                return at < 0 ? 0 : pairs[at * 2 + 1];
+            }
+
+            void forEach(IntIntMap.Entry action) {
+                for (int i = 0; i < used; i += 2) {
+                    if (pairs[i + 1] != 0) action.accept(pairs[i], pairs[i + 1]);
+                }
+            }
+
+            void adjust(int id, int field, int delta) {
+                int at = find(id);
+                if (at < 0) {
+                    if (delta < 0) return;
+                    at = -at - 1;
+                    if (used == pairs.length) pairs = Arrays.copyOf(pairs, pairs.length + Math.max(2, (pairs.length >> 2) << 1));
+                    // ids are handed out in increasing order, so this is nearly always an append
+                    System.arraycopy(pairs, at * 2, pairs, at * 2 + 2, used - at * 2);
+                    pairs[at * 2] = id;
+                    pairs[at * 2 + 1] = 0;
+                    used += 2;
+                }
+                int counts = pairs[at * 2 + 1];
+                int count = Math.max(0, Math.min(FIELD_MASK, ((counts >>> field) & FIELD_MASK) + delta));
+                int updated = (counts & ~(FIELD_MASK << field)) | (count << field);
+                pairs[at * 2 + 1] = updated;
+                if (counts == 0 && updated != 0) {
+                    live++;
+                } else if (counts != 0 && updated == 0) {
+                    live--;
+                    // removed pairs stay as zero counts until they outnumber the live ones
+                    if (live * 2 < used / 2) compact();
+                }
+            }
+
+            private void compact() {
+                int kept = 0;
+                for (int i = 0; i < used; i += 2) {
+                    if (pairs[i + 1] == 0) continue;
+                    pairs[kept] = pairs[i];
+                    pairs[kept + 1] = pairs[i + 1];
+                    kept += 2;
+                }
+                used = kept;
+                if (pairs.length > used * 2) pairs = Arrays.copyOf(pairs, Math.max(2, used));
+            }
+        }
+
+        // the vocabulary in term order as of the last merge, plus the terms seen since; empty terms are dropped at merges
+        private Postings[] sorted = new Postings[0];
+        private final TreeMap<String, Postings> recent = new TreeMap<>();
+        private int termCount;
+        private final StampedLock lock = new StampedLock();
+
+        public static List<String> tokenize(String text) {
+            if (text == null) return new ArrayList<>();
+            List<String> tokens = new ArrayList<>(text.length() / 6 + 1);
+            int start = -1;
+            boolean lowerCase = true;
+            for (int i = 0; i <= text.length(); i++) {
+                char c = i < text.length() ? text.charAt(i) : ' ';
+                boolean wordChar = Character.isLetterOrDigit(c);
+                if (wordChar && start < 0) {
+                    start = i;
+                    lowerCase = true;
+                } else if (!wordChar && start >= 0) {
+                    String token = text.substring(start, i);
+                    tokens.add(lowerCase ? token : token.toLowerCase());
+                    start = -1;
+                }
+                if (wordChar && Character.toLowerCase(c) != c) lowerCase = false;
+            }
+            return tokens;
+        }
+
+        @Override
+        public void added(Event event) {
+            long stamp = lock.writeLock();
+            try {
+                index(event.getId(), event.getTitle(), TITLE, 1);
+                index(event.getId(), event.getLocation(), LOCATION, 1);
+                index(event.getId(), event.getDescription(), DESCRIPTION, 1);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public void replaced(Event before, Event after) {
+            // an update keeps its id, so only the text fields that actually changed are re-indexed
+            long stamp = lock.writeLock();
+            try {
+                if (!before.getTitle().equals(after.getTitle())) {
+                    index(before.getId(), before.getTitle(), TITLE, -1);
+                    index(after.getId(), after.getTitle(), TITLE, 1);
+                }
+                if (!before.getLocation().equals(after.getLocation())) {
+                    index(before.getId(), before.getLocation(), LOCATION, -1);
+                    index(after.getId(), after.getLocation(), LOCATION, 1);
+                }
+                if (!before.getDescription().equals(after.getDescription())) {
+                    index(before.getId(), before.getDescription(), DESCRIPTION, -1);
+                    index(after.getId(), after.getDescription(), DESCRIPTION, 1);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public void removed(Event event) {
+            long stamp = lock.writeLock();
+            try {
+                index(event.getId(), event.getTitle(), TITLE, -1);
+                index(event.getId(), event.getLocation(), LOCATION, -1);
+                index(event.getId(), event.getDescription(), DESCRIPTION, -1);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void index(int id, String text, int field, int delta) {
+            for (String term : tokenize(text)) {
+                Postings postings = find(term);
+                if (postings == null) {
+                    if (delta < 0) continue;
+                    postings = new Postings(term);
+                    recent.put(term, postings);
+                }
+                boolean wasLive = postings.live > 0;
+                postings.adjust(id, field, delta);
+                if (!wasLive && postings.live > 0) termCount++;
+                else if (wasLive && postings.live == 0) termCount--;
+            }
+            int limit = Math.max(MERGE_MIN, sorted.length / 8);
+            if (recent.size() > limit || sorted.length + recent.size() - termCount > limit) merge();
+        }
+
+        private Postings find(String term) {
+            int at = lowerBound(term);
+            if (at < sorted.length && sorted[at].term.equals(term)) return sorted[at];
+            return recent.get(term);
+        }
+
+        private int lowerBound(String term) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sorted[middle].term.compareTo(term) < 0) low = middle + 1;
+                else high = middle;
+            }
+            return low;
+        }
+
+        private void merge() {
+            Postings[] merged = new Postings[termCount];
+            int count = 0;
+            int at = 0;
+            for (Postings added : recent.values()) {
+                while (at < sorted.length && sorted[at].term.compareTo(added.term) < 0) {
+                    if (sorted[at].live > 0) merged[count++] = sorted[at];
+                    at++;
+                }
+                if (added.live > 0) merged[count++] = added;
+            }
+            for (; at < sorted.length; at++) {
+                if (sorted[at].live > 0) merged[count++] = sorted[at];
+            }
+            sorted = merged;
+            recent.clear();
+        }
+
+        public void clear() {
+            long stamp = lock.writeLock();
+            try {
+                sorted = new Postings[0];
+                recent.clear();
+                termCount = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        public int termCount() {
+            long stamp = lock.readLock();
+            try {
+                return termCount;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private List<Postings> matching(String word) {
+            List<Postings> matching = new ArrayList<>();
+            for (int at = lowerBound(word); at < sorted.length && sorted[at].term.startsWith(word); at++) {
+                if (sorted[at].live > 0) matching.add(sorted[at]);
+            }
+            for (Postings postings : recent.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                if (postings.live > 0) matching.add(postings);
+            }
+            return matching;
+        }
+
+        private static int score(int counts, boolean exact) {
+            int score = 0;
+            for (int field = 0; field < WEIGHTS.length; field++) {
+                score += WEIGHTS[field] * ((counts >>> (field * 10)) & FIELD_MASK);
+            }
+            return exact ? score * 2 : score;
+        }
+
+        /** Ids of events containing a word starting with every query word, best match first. */
+        public int[] search(String query, int limit) {
+            List<String> words = tokenize(query);
+            if (words.isEmpty()) return new int[0];
+            long stamp = lock.readLock();
+            try {
+                List<List<Postings>> matches = new ArrayList<>();
+                List<Long> sizes = new ArrayList<>();
+                for (String word : new ArrayList<>(new LinkedHashSet<>(words))) {
+                    List<Postings> matching = matching(word);
+                    long size = 0;
+                    for (Postings postings : matching) {
+                        size += postings.live;
+                    }
+                    if (matching.isEmpty()) return new int[0];
+                    // rarest word first keeps the candidate set small for the rest
+                    int at = 0;
+                    while (at < sizes.size() && sizes.get(at) <= size) at++;
+                    matches.add(at, matching);
+                    sizes.add(at, size);
+                }
+
+                IntIntMap scores = new IntIntMap(sizes.get(0).intValue());
+                for (Postings term : matches.get(0)) {
+                    boolean exact = words.contains(term.term);
+                    term.forEach((id, counts) -> scores.put(id, scores.get(id, 0) + score(counts, exact)));
+                }
+                IntIntMap candidates = scores;
+                for (int i = 1; i < matches.size() && candidates.size() > 0; i++) {
+                    candidates = narrow(candidates, matches.get(i), sizes.get(i), words);
+                }
+                return top(candidates, limit);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private static IntIntMap narrow(IntIntMap candidates, List<Postings> terms, long termPostings, List<String> words) {
+            IntIntMap next = new IntIntMap(candidates.size());
+            if ((long) candidates.size() * terms.size() < termPostings) {
+                // few candidates: probe each matching term for them
+                candidates.forEach((id, score) -> {
+                    int added = 0;
+                    boolean found = false;
+                    for (Postings term : terms) {
+                        int counts = term.get(id);
+                        if (counts == 0) continue;
+                        found = true;
+                        added += score(counts, words.contains(term.term));
+                    }
+                    if (found) next.put(id, score + added);
+                });
+            } else {
+                for (Postings term : terms) {
+                    boolean exact = words.contains(term.term);
+                    term.forEach((id, counts) -> {
+                        int score = next.get(id, -1);
+                        if (score < 0) score = candidates.get(id, -1);
+                        if (score >= 0) next.put(id, score + score(counts, exact));
+                    });
+                }
+            }
+            return next;
+        }
+
+        private static int[] top(IntIntMap scores, int limit) {
+            // score in the high half, inverted id in the low half: one ascending sort ranks ties by id
+            long[] ranked = new long[scores.size()];
+            int[] count = { 0 };
+            scores.forEach((id, score) -> ranked[count[0]++] = ((long) score << 32) | (Integer.MAX_VALUE - id));
+            Arrays.sort(ranked);
+            int[] ids = new int[Math.min(limit, ranked.length)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = Integer.MAX_VALUE - (int) ranked[ranked.length - 1 - i];
+            }
+            return ids;
+        }
+    }
+
+    private static int monthOf(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static String monthLabel(int month) {
+        return String.format("%04d-%02d", Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1);
+    }
+
+    private static class AnalyticsTally {
+        private final long[] categories = new long[CATEGORIES.length];
+        private final long[][] inclusions = new long[CATEGORIES.length][];
+        private final TreeMap<Integer, Long> months = new TreeMap<>();
+        private final Map<String, Long> locations = new HashMap<>();
+        private final Map<String, String> locationNames = new HashMap<>();
+        private long total;
+
+        AnalyticsTally() {
+            for (int category = 0; category < CATEGORIES.length; category++) {
+                inclusions[category] = new long[InclusionCatalog.forCategory(CATEGORIES[category]).size()];
+            }
+        }
+
+        void add(Event event) {
+            total++;
+            int category = categoryOrdinal(event.getCategory());
+            if (category >= 0) {
+                categories[category]++;
+                for (long bits = event.getInclusionMask(); bits != 0; bits &= bits - 1) {
+                    int ordinal = Long.numberOfTrailingZeros(bits);
+                    if (ordinal < inclusions[category].length) inclusions[category][ordinal]++;
+                }
+            }
+            if (event.getEpochDay() != NO_DATE) months.merge(monthOf(event.getEpochDay()), 1L, Long::sum);
+            String venue = VenueSchedule.venueKey(event.getLocation());
+            locations.merge(venue, 1L, Long::sum);
+            locationNames.putIfAbsent(venue, event.getLocation().trim());
+        }
+
+        // other must tally events that come after this tally's, so each venue keeps its first spelling
+        AnalyticsTally merge(AnalyticsTally other) {
+            total += other.total;
+            for (int category = 0; category < categories.length; category++) {
+                categories[category] += other.categories[category];
+                for (int ordinal = 0; ordinal < inclusions[category].length; ordinal++) {
+                    inclusions[category][ordinal] += other.inclusions[category][ordinal];
+                }
+            }
+            other.months.forEach((month, count) -> months.merge(month, count, Long::sum));
+            other.locations.forEach((location, count) -> locations.merge(location, count, Long::sum));
+            other.locationNames.forEach(locationNames::putIfAbsent);
+            return this;
+        }
+
+        List<String> differencesFrom(AnalyticsTally expected) {
+            List<String> differences = new ArrayList<>();
+            if (total != expected.total) differences.add("total: " + total + " vs " + expected.total);
+            for (int category = 0; category < categories.length; category++) {
+                if (categories[category] != expected.categories[category]) {
+                    differences.add(CATEGORIES[category] + ": " + categories[category] + " vs " + expected.categories[category]);
+                }
+                InclusionCatalog catalog = InclusionCatalog.forCategory(CATEGORIES[category]);
+                for (int ordinal = 0; ordinal < inclusions[category].length; ordinal++) {
+                    if (inclusions[category][ordinal] != expected.inclusions[category][ordinal]) {
+                        differences.add(CATEGORIES[category] + " / " + catalog.item(ordinal) + ": "
+                                + inclusions[category][ordinal] + " vs " + expected.inclusions[category][ordinal]);
+                    }
+                }
+            }
+            if (!months.equals(expected.months)) differences.add("bookings per month differ");
+            if (!locations.equals(expected.locations)) differences.add("bookings per location differ");
+            return differences;
+        }
+    }
+
+    private static class Analytics implements StoreListener {
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLongArray categories = new AtomicLongArray(CATEGORIES.length);
+        private final AtomicLongArray[] inclusions = new AtomicLongArray[CATEGORIES.length];
+        private final ConcurrentSkipListMap<Integer, AtomicLong> months = new ConcurrentSkipListMap<>();
+        private final ConcurrentHashMap<String, AtomicLong> locations = new ConcurrentHashMap<>();
+        // first spelling seen for each venue, for display
+        private final ConcurrentHashMap<String, String> locationNames = new ConcurrentHashMap<>();
+
+        Analytics() {
+            for (int category = 0; category < CATEGORIES.length; category++) {
+                inclusions[category] = new AtomicLongArray(InclusionCatalog.forCategory(CATEGORIES[category]).size());
+            }
+        }
+
+        @Override
+        public void added(Event event) {
+            apply(event, 1);
+        }
+
+        @Override
+        public void replaced(Event before, Event after) {
+            apply(before, -1);
+            apply(after, 1);
+        }
+
+        @Override
+        public void removed(Event event) {
+            apply(event, -1);
+        }
+
+        private void apply(Event event, int delta) {
+            // store listeners run under the store's write lock, so there is one writer; atomics keep readers consistent
+            total.addAndGet(delta);
+            int category = categoryOrdinal(event.getCategory());
+            if (category >= 0) {
+                categories.addAndGet(category, delta);
+                AtomicLongArray items = inclusions[category];
+                for (long bits = event.getInclusionMask(); bits != 0; bits &= bits - 1) {
+                    int ordinal = Long.numberOfTrailingZeros(bits);
+                    if (ordinal < items.length()) items.addAndGet(ordinal, delta);
+                }
+            }
+            if (event.getEpochDay() != NO_DATE) adjust(months, monthOf(event.getEpochDay()), delta);
+            String venue = VenueSchedule.venueKey(event.getLocation());
+            adjust(locations, venue, delta);
+            if (delta > 0) {
+                locationNames.putIfAbsent(venue, event.getLocation().trim());
+            } else if (!locations.containsKey(venue)) {
+                locationNames.remove(venue);
+            }
+        }
+
+        private static <K> void adjust(Map<K, AtomicLong> counts, K key, int delta) {
+            if (delta > 0) {
+                counts.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta);
+            } else {
+                counts.computeIfPresent(key, (k, count) -> count.addAndGet(delta) <= 0 ? null : count);
+            }
+        }
+
+        public void reset() {
+            total.set(0);
+            for (int category = 0; category < CATEGORIES.length; category++) {
+                categories.set(category, 0);
+                for (int ordinal = 0; ordinal < inclusions[category].length(); ordinal++) {
+                    inclusions[category].set(ordinal, 0);
+                }
+            }
+            months.clear();
+            locations.clear();
+            locationNames.clear();
+        }
+
+        // take this under EventStore.quiesced for figures that match one store snapshot
+        public AnalyticsTally snapshot() {
+            AnalyticsTally tally = new AnalyticsTally();
+            tally.total = total.get();
+            for (int category = 0; category < CATEGORIES.length; category++) {
+                tally.categories[category] = categories.get(category);
+                for (int ordinal = 0; ordinal < tally.inclusions[category].length; ordinal++) {
+                    tally.inclusions[category][ordinal] = inclusions[category].get(ordinal);
+                }
+            }
+            months.forEach((month, count) -> tally.months.put(month, count.get()));
+            locations.forEach((location, count) -> tally.locations.put(location, count.get()));
+            tally.locationNames.putAll(locationNames);
+            return tally;
+        }
+
+        // a full recount, one tally per run of month partitions counted in parallel and merged in date order
+        public static AnalyticsTally recount(EventSnapshot snapshot) {
+            List<EventSnapshot.Partition> partitions = snapshot.partitions(Integer.MIN_VALUE, Integer.MAX_VALUE);
+            if (partitions.isEmpty()) return new AnalyticsTally();
+            return EventSnapshot.scan(partitions, partition -> {
+                AnalyticsTally tally = new AnalyticsTally();
+                for (Event event : partition.events()) {
+                    tally.add(event);
+                }
+                return tally;
+            }, AnalyticsTally::merge);
+        }
+    }
+
+    // every location spelling seen, numbered in the order first seen, so an event keeps an int instead of a
+    // reference. Entries are only ever appended: an id stays valid for the life of the process, and names are
+    // read from chunks that double in size, published with a compare-and-set, so neither side takes a lock
+    static final class LocationDictionary {
+        static final int NONE = -1;
+        private static final int FIRST_CHUNK_BITS = 6;
+        private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+        // chunk k holds ids from 2^(k+6) - 64 on, 2^(k+6) of them
+        private static final AtomicReferenceArray<AtomicReferenceArray<String>> CHUNKS = new AtomicReferenceArray<>(32 - FIRST_CHUNK_BITS);
+        private static final AtomicInteger NEXT = new AtomicInteger();
+
+        private LocationDictionary() {
+        }
+
+        static int idOf(String location) {
+            if (location == null) return NONE;
+            Integer id = IDS.get(location);
+            return id != null ? id : IDS.computeIfAbsent(location, LocationDictionary::append);
+        }
+
+        static String nameOf(int id) {
+            if (id == NONE) return null;
+            int slot = id + (1 << FIRST_CHUNK_BITS);
+            int chunk = 31 - Integer.numberOfLeadingZeros(slot) - FIRST_CHUNK_BITS;
+            return CHUNKS.get(chunk).get(slot - (1 << (chunk + FIRST_CHUNK_BITS)));
+        }
+
+        static int size() { return NEXT.get(); }
+
+        // runs once per spelling inside computeIfAbsent, so the name is in place before its id is handed out
+        private static int append(String location) {
+            int id = NEXT.getAndIncrement();
+            int slot = id + (1 << FIRST_CHUNK_BITS);
+            int chunk = 31 - Integer.numberOfLeadingZeros(slot) - FIRST_CHUNK_BITS;
+            AtomicReferenceArray<String> names = CHUNKS.get(chunk);
+            if (names == null) {
+                CHUNKS.compareAndSet(chunk, null, new AtomicReferenceArray<>(1 << (chunk + FIRST_CHUNK_BITS)));
+                names = CHUNKS.get(chunk);
+            }
+            names.set(slot - (1 << (chunk + FIRST_CHUNK_BITS)), location);
+            return id;
+        }
+    }
+
+    static class Event {
+        // parts of the text array, each stored as a varint byte length followed by UTF-8 bytes
+        private static final int TITLE = 0;
+        private static final int DESCRIPTION = 1;
+        private static final int RAW_DATE = 2;
+        private static final int RAW_TIME = 3;
+        private static final int RAW_CATEGORY = 4;
+        private static final int PARTS = 5;
+        private static final byte[] EMPTY_TEXT = new byte[PARTS];
+        private static final byte COMPRESSED = 1;
+        // set once the store publishes the event; a published version is never changed, only replaced
+        private static final byte FROZEN = 2;
+        private static final int COMPRESS_FROM = 64;
+        private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+        private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+        private static volatile boolean compressDescriptions;
+
+        private int id;
+        private int epochDay;
+        private short minuteOfDay;
+        private byte category;
+        private byte flags;
+        private long inclusionMask;
+        private int location;
+        // title and description, plus the raw date, time and category text only when it did not parse
+        private byte[] text;
+
+        public Event(int id, String title, String date, String time, String location, String category, List<String> inclusion, String description) {
+            this.id = id;
+            this.text = EMPTY_TEXT;
+            setTitle(title);
+            setDate(date);
+            setTime(time);
+            setLocation(location);
+            setCategory(category);
+            this.inclusionMask = InclusionCatalog.forCategory(category).maskOf(inclusion);
+            setDescription(description);
+        }
+
+        private Event(int id, int epochDay, int minuteOfDay) {
+            this.id = id;
+            this.epochDay = epochDay;
+            this.minuteOfDay = (short) minuteOfDay;
+            this.category = -1;
+            this.location = LocationDictionary.NONE;
+        }
+
+        public static Event probe(int epochDay, int minuteOfDay, int id) {
+            // range bounds pass the int extremes, which must stay extreme once packed into a short
+            return new Event(id, epochDay, Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, minuteOfDay)));
+        }
+
+        public static Event reservation(int id, int epochDay, int minuteOfDay, String location, int category) {
+            Event event = new Event(id, epochDay, minuteOfDay);
+            event.location = LocationDictionary.idOf(location);
+            event.category = (byte) category;
+            return event;
+        }
+
+        public Event(Event other) {
+            this(other.id, other);
+        }
+
+        public Event(int id, Event other) {
+            // the text array is never written in place, so copies can share it
+            this.id = id;
+            this.epochDay = other.epochDay;
+            this.minuteOfDay = other.minuteOfDay;
+            this.category = other.category;
+            this.flags = (byte) (other.flags & ~FROZEN);
+            this.inclusionMask = other.inclusionMask;
+            this.location = other.location;
+            this.text = other.text;
+        }
+
+        public int getId() { return id; }
+        public String getTitle() { return part(TITLE); }
+        public int getEpochDay() { return epochDay; }
+        public int getMinuteOfDay() { return minuteOfDay; }
+        public String getLocation() { return LocationDictionary.nameOf(location); }
+        public List<String> getInclusion() { return InclusionCatalog.forCategory(getCategory()).itemsOf(inclusionMask); }
+        public long getInclusionMask() { return inclusionMask; }
+        public int getCategoryOrdinal() { return category; }
+
+        public String getDate() {
+            return epochDay != NO_DATE ? LocalDate.ofEpochDay(epochDay).toString() : part(RAW_DATE);
+        }
+
+        public String getTime() {
+            return minuteOfDay != NO_TIME ? formatMinuteOfDay(minuteOfDay) : part(RAW_TIME);
+        }
+
+        public String getCategory() {
+            return category >= 0 ? CATEGORIES[category] : part(RAW_CATEGORY);
+        }
+
+        public String getDescription() {
+            if ((flags & COMPRESSED) == 0) return part(DESCRIPTION);
+            int offset = offsetOf(DESCRIPTION);
+            int stored = varint(text, offset);
+            offset += varintSize(stored);
+            int length = varint(text, offset);
+            int start = offset + varintSize(length);
+            byte[] bytes = new byte[length];
+            Inflater inflater = INFLATERS.get();
+            inflater.reset();
+            inflater.setInput(text, start, stored - (start - offset));
+            try {
+                inflater.inflate(bytes);
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt description for event " + id, e);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public void freeze() { flags |= FROZEN; }
+
+        private void checkMutable() {
+            if ((flags & FROZEN) != 0) throw new IllegalStateException("Event " + id + " is published; edit a copy instead");
+        }
+
+        public void setTitle(String title) {
+            checkMutable();
+            setPart(TITLE, bytesOf(title));
+        }
+
+        public void setDate(String date) {
+            checkMutable();
+            this.epochDay = parseEpochDay(date);
+            setPart(RAW_DATE, epochDay == NO_DATE ? bytesOf(date) : null);
+        }
+
+        public void setTime(String time) {
+            checkMutable();
+            this.minuteOfDay = (short) parseMinuteOfDay(time);
+            setPart(RAW_TIME, minuteOfDay == NO_TIME ? bytesOf(time) : null);
+        }
+
+        public void setLocation(String location) {
+            checkMutable();
+            this.location = LocationDictionary.idOf(location);
+        }
+
+        public void setCategory(String category) {
+            checkMutable();
+            this.category = (byte) categoryOrdinal(category);
+            setPart(RAW_CATEGORY, this.category < 0 ? bytesOf(category) : null);
+        }
+
+        public void setInclusion(List<String> inclusion) { setInclusionMask(InclusionCatalog.forCategory(getCategory()).maskOf(inclusion)); }
+
+        public void setInclusionMask(long inclusionMask) {
+            checkMutable();
+            this.inclusionMask = inclusionMask;
+        }
+
+        public void setDescription(String description) {
+            checkMutable();
+            byte[] bytes = bytesOf(description);
+            flags &= ~COMPRESSED;
+            if (compressDescriptions && bytes.length >= COMPRESS_FROM) {
+                byte[] packed = deflate(bytes);
+                if (packed != null) {
+                    bytes = packed;
+                    flags |= COMPRESSED;
+                }
+            }
+            setPart(DESCRIPTION, bytes);
+        }
+
+        private static byte[] bytesOf(String value) {
+            return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static byte[] deflate(byte[] bytes) {
+            // original length first, then the raw deflate stream; kept only when it saves space
+            Deflater deflater = DEFLATERS.get();
+            deflater.reset();
+            deflater.setInput(bytes);
+            deflater.finish();
+            byte[] packed = new byte[bytes.length];
+            int header = varintSize(bytes.length);
+            putVarint(packed, 0, bytes.length);
+            int length = deflater.deflate(packed, header, packed.length - header);
+            return deflater.finished() ? Arrays.copyOf(packed, header + length) : null;
+        }
+
+        private String part(int part) {
+            if (text == null) return null;
+            int offset = offsetOf(part);
+            int length = varint(text, offset);
+            return new String(text, offset + varintSize(length), length, StandardCharsets.UTF_8);
+        }
+
+        private int offsetOf(int part) {
+            int offset = 0;
+            for (int i = 0; i < part; i++) {
+                int length = varint(text, offset);
+                offset += varintSize(length) + length;
+            }
+            return offset;
+        }
+
+        private void setPart(int part, byte[] bytes) {
+            if (bytes == null) bytes = new byte[0];
+            int start = offsetOf(part);
+            int oldLength = varint(text, start);
+            int end = start + varintSize(oldLength) + oldLength;
+            if (oldLength == 0 && bytes.length == 0) return;
+            byte[] updated = new byte[start + varintSize(bytes.length) + bytes.length + text.length - end];
+            System.arraycopy(text, 0, updated, 0, start);
+            int offset = putVarint(updated, start, bytes.length);
+            System.arraycopy(bytes, 0, updated, offset, bytes.length);
+            System.arraycopy(text, end, updated, offset + bytes.length, text.length - end);
+            text = updated;
+        }
+
+        private static int varintSize(int value) {
+            int size = 1;
+            while ((value >>>= 7) != 0) size++;
+            return size;
+        }
+
+        private static int varint(byte[] bytes, int offset) {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[offset++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+
+        private static int putVarint(byte[] bytes, int offset, int value) {
+            while ((value & ~0x7F) != 0) {
+                bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[offset++] = (byte) value;
+            return offset;
+        }
+
+        @Override
+        public String toString() {
+            return formatRow(id, getTitle(), getDate(), getTime(), getLocation(), getCategory());
+        }
+
+        // the listing row exactly as formatRow lays it out, appended straight from the packed fields
+        public void appendRow(RowRenderer line) {
+            line.append("| ");
+            int start = line.length();
+            line.append(id);
+            line.pad(start, 5).append(" | ");
+            start = line.length();
+            appendPart(line, TITLE);
+            if (line.length() - start > 25) line.truncate(start + 22).append("...");
+            line.pad(start, 25).append(" | ");
+            start = line.length();
+            LocalDate date = epochDay != NO_DATE ? LocalDate.ofEpochDay(epochDay) : null;
+            if (date == null) {
+                appendPart(line, RAW_DATE);
+            } else if (date.getYear() < 0 || date.getYear() > 9999) {
+                line.append(date.toString());
+            } else {
+                line.appendDigits(date.getYear(), 4).append('-').appendDigits(date.getMonthValue(), 2).append('-').appendDigits(date.getDayOfMonth(), 2);
+            }
+            line.pad(start, 10).append(" | ");
+            start = line.length();
+            if (minuteOfDay != NO_TIME) {
+                line.appendDigits(minuteOfDay / 60, 2).append(':').appendDigits(minuteOfDay % 60, 2);
+            } else {
+                appendPart(line, RAW_TIME);
+            }
+            line.pad(start, 5).append(" | ");
+            start = line.length();
+            line.append(getLocation());
+            line.pad(start, 15).append(" | ");
+            start = line.length();
+            if (category >= 0) {
+                line.append(CATEGORIES[category]);
+            } else {
+                appendPart(line, RAW_CATEGORY);
+                if (line.length() == start) line.append("None");
+            }
+            line.pad(start, 15).append(" |");
+        }
+
+        private void appendPart(RowRenderer line, int part) {
+            if (text == null) {
+                line.append((String) null);
+                return;
+            }
+            int offset = offsetOf(part);
+            int length = varint(text, offset);
+            int start = offset + varintSize(length);
+            // plain ASCII is copied byte for byte; anything else is decoded properly
+            for (int i = start; i < start + length; i++) {
+                if (text[i] < 0) {
+                    line.append(new String(text, start, length, StandardCharsets.UTF_8));
+                    return;
+                }
+            }
+            line.appendAscii(text, start, length);
+        }
+    }
+
+
+    public EventOrganizerConsole() {
+        this(null, null);
+    }
+
+    public EventOrganizerConsole(Path dataDir, Path archivePath) {
+        this(dataDir, archivePath, System.in, new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false));
+    }
+
+    public EventOrganizerConsole(Path dataDir, Path archivePath, InputStream in, PrintStream out) {
+        this(dataDir, archivePath, in, out, true);
+    }
+
+    // without the demo events a fresh store otherwise starts with
+    EventOrganizerConsole(Path dataDir, Path archivePath, InputStream in, PrintStream out, boolean seedDemoEvents) {
+        this.store = new EventStore();
+        this.scanner = new Scanner(in);
+        this.out = out;
+        this.idCounter = new AtomicInteger(1);
+        this.ownsResources = true;
+        this.metrics = new Metrics(store::size);
+        this.analytics = new Analytics();
+        this.searchIndex = new SearchIndex();
+        this.feed = new ChangeFeed();
+        store.addListener(analytics);
+        store.addListener(searchIndex);
+
+        EventJournal opened = null;
+        if (dataDir != null) {
+            try {
+                opened = EventJournal.open(dataDir, store, idCounter::get);
+                idCounter.set(Math.max(idCounter.get(), opened.getRecoveredNextId()));
+            } catch (IOException e) {
+                out.println("[ERROR] Could not open the event file in " + dataDir + ": " + e.getMessage());
+                out.println("[INFO] Continuing without saving events.");
+                store.clear();
+                analytics.reset();
+                searchIndex.clear();
+            }
+        }
+        this.journal = opened;
+        // attached after recovery, so replaying the journal is not published again; numbering carries on from it
+        if (journal != null) feed.resumeAt(journal.lastAppendedSeq());
+        store.addListener(feed);
+
+        ColumnarArchive openedArchive = null;
+        if (archivePath != null) {
+            try {
+                openedArchive = ColumnarArchive.open(archivePath);
+            } catch (IOException e) {
+                out.println("[ERROR] Could not open the event archive " + archivePath + ": " + e.getMessage());
+            }
+        }
+        this.archive = openedArchive;
+        if (archive != null) {
+            for (int row = 0; row < archive.rowCount(); row++) {
+                if (archive.isDeleted(row)) continue;
+                int id = archive.id(row);
+                Event live = store.get(id);
+                if (live != null) {
+                    store.remove(live, false);
+                }
+                store.reserve(Event.reservation(id, archive.epochDay(row), archive.minuteOfDay(row), archive.location(row), archive.categoryOrdinal(row)));
+                idCounter.set(Math.max(idCounter.get(), id + 1));
+            }
+            awaitDurability();
+        }
+
+        if (!seedDemoEvents || (journal != null && !journal.isFresh()) || (archive != null && archive.rowCount() > 0)) {
+            return;
+        }
+
+        List<String> bdayInclusions = Arrays.asList("EVENT SPACE", "BUFFET", "DJ", "PROFESSIONAL PHOTOGRAPHER");
+        addSeedEvent(new Event(idCounter.getAndIncrement(), "Alice's 30th Party", "2024-11-20", "19:00", "The Loft Venue", "Birthday", bdayInclusions, "Celebration for Alice's 30th birthday."));
+        
+        List<String> anniInclusions = Arrays.asList("PRIVATE ROOM", "PLATED MEAL", "BALLOONS", "PROGRAM HOST");
+        addSeedEvent(new Event(idCounter.getAndIncrement(), "25th Wedding Milestone", "2025-05-15", "18:00", "Grand Ballroom", "Anniversary", anniInclusions, "Celebrating the couple's silver wedding anniversary."));
+        
+        List<String> burialInclusions = Arrays.asList("HOME", "LARGE", "HEARSE", "FUNERAL FLOWERS");
+        addSeedEvent(new Event(idCounter.getAndIncrement(), "John Doe Service", "2024-12-24", "10:30", "Pine Hill Chapel", "Burial", burialInclusions, "Memorial service for the late John Doe."));
+    }
+
+    EventOrganizerConsole(EventOrganizerConsole shared, InputStream in, PrintStream out) {
+        this.store = shared.store;
+        this.journal = shared.journal;
+        this.archive = shared.archive;
+        this.idCounter = shared.idCounter;
+        this.metrics = shared.metrics;
+        this.analytics = shared.analytics;
+        this.searchIndex = shared.searchIndex;
+        this.feed = shared.feed;
+        this.scanner = new Scanner(in);
+        this.out = out;
+        this.ownsResources = false;
+    }
+
+    private void addSeedEvent(Event event) {
+        store.add(event);
+        awaitDurability();
+    }
+
+    private String readLine() {
+        out.flush();
+        return scanner.nextLine();
+    }
+
+    private boolean awaitDurability() {
+        if (journal == null) return true;
+        try {
+            long seq = journal.lastAppendedSeq();
+            if (deferDurability) {
+                pendingJournalSeq = seq;
+            } else {
+                journal.awaitDurable(seq);
+            }
+            return true;
+        } catch (UncheckedIOException | IllegalStateException e) {
+            out.println("[ERROR] Failed to save the change to the event file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public void run() {
+        boolean running = true;
+        out.println("Welcome to HEBS Event Organizer (Java Console Edition)");
+        while (running) {
+            displayMenu();
+            out.print(archive == null ? "Enter your choice (1-9): " : "Enter your choice (1-10): ");
+            String choice = readLine().trim();
+
+            switch (choice) {
+                case "1":
+                    addEvent();
+                    break;
+                case "2":
+                    viewEvents();
+                    break;
+                case "3":
+                    updateEvent();
+                    break;
+                case "4":
+                    deleteEvent();
+                    break;
+                case "5":
+                    generateReceipt();
+                    break;
+                case "7":
+                    metrics.print(out);
+                    break;
+                case "8":
+                    showAnalytics();
+                    break;
+                case "9":
+                    searchEvents();
+                    break;
+                case "10":
+                    if (archive == null) {
+                        out.println("\n[INFO] Invalid choice. Please enter a number between 1 and 9.");
+                    } else {
+                        archiveEvents();
+                    }
+                    break;
+                case "6":
+                    running = false;
+                    out.println("\nThank you for using the Event Organizer. Goodbye!");
+                    break;
+                default:
+                    out.println("\n[INFO] Invalid choice. Please enter a number between 1 and " + (archive == null ? 9 : 10) + ".");
+                    break;
+            }
+        }
+        scanner.close();
+        close();
+    }
+
+    void close() {
+        out.flush();
+        if (!ownsResources) return;
+        feed.close();
+        if (journal != null) {
+            journal.close();
+        }
+        if (archive != null) {
+            archive.close();
+        }
+        metrics.close();
+    }
+
+    private void exportFeed(Path file) {
+        try {
+            feed.subscribe("export", FEED_BATCH, new FeedExport(file));
+        } catch (IOException e) {
+            out.println("[ERROR] Could not open the change feed file " + file + ": " + e.getMessage());
+        }
+    }
+
+    Event findConflict(Event candidate) {
+        long started = System.nanoTime();
+        Event booked = store.findConflict(candidate);
+        metrics.record(Metrics.DATE_CHECK, started);
+        return booked;
+    }
+
+    private String conflictMessage(Event candidate, Event booked) {
+        return bookedMessage(booked)
+                + " Next free start for this " + candidate.getCategory() + ": " + VenueSchedule.format(store.nextFreeStart(candidate)) + ".";
+    }
+
+    private static String bookedMessage(Event booked) {
+        return booked.getLocation() + " is booked by event " + booked.getId() + " from " + VenueSchedule.format(VenueSchedule.start(booked))
+                + " until " + VenueSchedule.format(VenueSchedule.end(booked)) + ", turnaround included.";
+    }
+
+    private String conflictError(Event candidate) {
+        Event booked = findConflict(candidate);
+        return booked == null ? null : conflictMessage(candidate, booked);
+    }
+
+    private Event commitAdd(Event draft) {
+        long started = System.nanoTime();
+        Event event = new Event(idCounter.getAndIncrement(), draft);
+        if (!store.tryAdd(event)) {
+            metrics.dateConflict(event.getEpochDay());
+            return null;
+        }
+        awaitDurability();
+        metrics.record(Metrics.ADD, started);
+        return event;
+    }
+
+    // a turned-away booking is counted once, where it is turned away: here when a commit loses the slot,
+    // and wherever a conflict check ends the attempt
+    private boolean commitUpdate(Event original, Event updated) {
+        long started = System.nanoTime();
+        if (!store.replace(original, updated)) {
+            if (store.findConflict(updated) != null) metrics.dateConflict(updated.getEpochDay());
+            return false;
+        }
+        awaitDurability();
+        metrics.record(Metrics.UPDATE, started);
+        return true;
+    }
+
+    private boolean commitDelete(Event event) {
+        long started = System.nanoTime();
+        if (!store.remove(event)) return false;
+        awaitDurability();
+        metrics.record(Metrics.DELETE, started);
+        return true;
+    }
+
+    // the live events matching every filter given; the date range narrows the walk, the rest are checked per event
+    private List<Event> matchBulk(Map<String, String> fields) {
+        String category = fields.remove("category");
+        String location = fields.remove("location");
+        String inclusion = fields.remove("inclusion");
+        String fromField = fields.remove("from");
+        String toField = fields.remove("to");
+        if (category == null && location == null && inclusion == null && fromField == null && toField == null) {
+            throw new IllegalArgumentException("Give at least one filter: from, to, category, location or inclusion.");
+        }
+        int from = fromField != null ? requireDate(fromField) : Integer.MIN_VALUE;
+        int to = toField != null ? requireDate(toField) : Integer.MAX_VALUE;
+        if (from > to) throw new IllegalArgumentException("'from' must not be after 'to'.");
+        long inclusionBit = 0;
+        if (inclusion != null) {
+            if (category == null) throw new IllegalArgumentException("Filtering by 'inclusion' needs a 'category'.");
+            int ordinal = InclusionCatalog.forCategory(canonicalCategory(category)).ordinalOf(inclusion.trim().toUpperCase());
+            if (ordinal < 0) throw new IllegalArgumentException("Unknown inclusion '" + inclusion + "' for category '" + category + "'.");
+            inclusionBit = 1L << ordinal;
+        }
+        long wanted = inclusionBit;
+        // only the month partitions in the date range are walked, in parallel, and the matches joined in date order
+        List<EventSnapshot.Partition> partitions = store.snapshot().partitions(from, to);
+        if (partitions.isEmpty()) return new ArrayList<>();
+        return EventSnapshot.scan(partitions, partition -> {
+            List<Event> matches = new ArrayList<>();
+            for (Event event : partition.events()) {
+                if ((category == null || event.getCategory().equalsIgnoreCase(category))
+                        && (location == null || event.getLocation().trim().equalsIgnoreCase(location))
+                        && (wanted == 0 || (event.getInclusionMask() & wanted) != 0)) {
+                    matches.add(event);
+                }
+            }
+            return matches;
+        }, EventOrganizerConsole::joined);
+    }
+
+    private static String canonicalCategory(String value) {
+        for (String category : CATEGORIES) {
+            if (category.equalsIgnoreCase(value)) return category;
+        }
+        return value;
+    }
+
+    // every matching event changes in one store transaction; a single conflict leaves all of them as they were
+    private void bulkUpdate(Map<String, String> fields, boolean dryRun) {
+        Map<String, String> changes = new HashMap<>();
+        for (String key : new ArrayList<>(fields.keySet())) {
+            if (key.startsWith("set-")) changes.put(key.substring(4), fields.remove(key));
+        }
+        if (changes.isEmpty()) throw new IllegalArgumentException("Give at least one change: set-title, set-date, set-time, set-location, set-description, set-category or set-inclusions.");
+        List<Event> matches = matchBulk(fields);
+        if (!fields.isEmpty()) throw new IllegalArgumentException("Unknown field '" + fields.keySet().iterator().next() + "'.");
+        if (matches.isEmpty()) {
+            out.println("[INFO] No events match.");
+            return;
+        }
+        long started = System.nanoTime();
+        List<Event> updateds = new ArrayList<>(matches.size());
+        for (Event original : matches) {
+            Event updated = new Event(original);
+            applyFields(updated, changes);
+            String error = validateFields(updated);
+            if (error != null) throw new IllegalArgumentException("Event ID " + original.getId() + ": " + error);
+            updateds.add(updated);
+        }
+        Map<Event, Event> conflicts = store.replaceAll(matches, updateds, !dryRun);
+        if (conflicts == null) throw new IllegalArgumentException("Some of the matching events changed while they were being updated. Try again.");
+        if (!conflicts.isEmpty()) {
+            // a blocker may be another event of this batch in its new slot, so the store's free starts would mislead here
+            StringBuilder message = new StringBuilder(conflicts.size() + " of " + matches.size() + " event(s) would clash, so none were updated.");
+            int shown = 0;
+            for (Map.Entry<Event, Event> conflict : conflicts.entrySet()) {
+                if (shown++ == BULK_CONFLICTS_SHOWN) break;
+                message.append(" Event ID ").append(conflict.getKey().getId()).append(": ").append(bookedMessage(conflict.getValue()));
+            }
+            throw new IllegalArgumentException(message.toString());
+        }
+        if (dryRun) {
+            out.println("[INFO] Dry run: " + matches.size() + " event(s) would be updated.");
+            return;
+        }
+        awaitDurability();
+        metrics.record(Metrics.BULK, started);
+        out.println("[SUCCESS] Updated " + matches.size() + " event(s).");
+    }
+
+    private void bulkDelete(Map<String, String> fields, boolean dryRun) {
+        List<Event> matches = matchBulk(fields);
+        if (!fields.isEmpty()) throw new IllegalArgumentException("Unknown field '" + fields.keySet().iterator().next() + "'.");
+        if (matches.isEmpty()) {
+            out.println("[INFO] No events match.");
+            return;
+        }
+        if (dryRun) {
+            out.println("[INFO] Dry run: " + matches.size() + " event(s) would be deleted.");
+            return;
+        }
+        long started = System.nanoTime();
+        if (!store.removeAll(matches)) throw new IllegalArgumentException("Some of the matching events changed while they were being deleted. Try again.");
+        awaitDurability();
+        metrics.record(Metrics.BULK, started);
+        out.println("[SUCCESS] Deleted " + matches.size() + " event(s).");
+    }
+
+    private boolean printHistory(int id) {
+        EventSnapshot snapshot = store.snapshot();
+        Event live = findEventById(id);
+        EventVersion versions = store.history(id);
+        if (live == null && versions == null) return false;
+        out.println("[INFO] Versions of event ID " + id + ", newest first, as of change " + snapshot.version() + ":");
+        if (live != null) out.printf("%-20s %s\n", "current", live);
+        for (EventVersion version = versions; version != null; version = version.previous()) {
+            out.printf("%-20s %s\n", (version.deleted() ? "deleted in " : "replaced in ") + version.supersededAt(), version.event());
+        }
+        return true;
+    }
+
+    private String undoChange(int id, EventVersion newest) {
+        if (archive != null && archive.findRow(id) >= 0) return "Event ID " + id + " is archived and cannot be restored.";
+        if (newest == null) return "Event ID " + id + " has no earlier version to restore.";
+        String conflict = conflictError(newest.event());
+        if (conflict != null) {
+            metrics.dateConflict(newest.event().getEpochDay());
+            return conflict;
+        }
+        long started = System.nanoTime();
+        if (!store.undo(newest)) return "Event ID " + id + " changed while it was being restored. Try again.";
+        awaitDurability();
+        metrics.record(Metrics.UPDATE, started);
+        return null;
+    }
+
+    private String validateEvent(Event event) {
+        String error = validateFields(event);
+        if (error != null) return error;
+        String conflict = conflictError(event);
+        if (conflict != null) metrics.dateConflict(event.getEpochDay());
+        return conflict;
+    }
+
+    private static String validateFields(Event event) {
+        if (event.getTitle().isEmpty()) return "Reservation Name is required.";
+        if (event.getDate().isEmpty()) return "Date is required.";
+        if (event.getEpochDay() == NO_DATE) return "Invalid date '" + event.getDate() + "'. Use the format YYYY-MM-DD.";
+        if (event.getTime().isEmpty()) return "Time is required.";
+        if (event.getMinuteOfDay() == NO_TIME) return "Invalid time '" + event.getTime() + "'. Use the 24-hour format HH:MM.";
+        if (event.getLocation().isEmpty()) return "Location is required.";
+        if (categoryOrdinal(event.getCategory()) < 0) {
+            return "Unknown category '" + event.getCategory() + "'. Choose one of " + String.join(", ", CATEGORIES) + ".";
+        }
+        if (event.getInclusionMask() == 0) return "At least one inclusion is required.";
+        if (Long.bitCount(event.getInclusionMask()) > MAX_INCLUSIONS) return "At most " + MAX_INCLUSIONS + " inclusions can be selected.";
+        return null;
+    }
+
+    public int runBatch(BufferedReader commands) throws IOException {
+        deferDurability = true;
+        int lineNumber = 0;
+        int executed = 0;
+        int failed = 0;
+        String line;
+        while ((line = commands.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            executed++;
+            try {
+                executeCommand(line);
+            } catch (IllegalArgumentException e) {
+                out.println("[ERROR] Line " + lineNumber + ": " + e.getMessage());
+                failed++;
+            }
+        }
+        deferDurability = false;
+        if (journal != null && pendingJournalSeq > 0) {
+            try {
+                journal.awaitDurable(pendingJournalSeq);
+            } catch (UncheckedIOException e) {
+                out.println("[ERROR] Failed to save the batch to the event file: " + e.getMessage());
+            }
+        }
+        out.println("[INFO] Batch finished: " + executed + " command(s), " + failed + " failed.");
+        out.flush();
+        return failed;
+    }
+
+    private void executeCommand(String line) {
+        List<String> parts = splitCommand(line);
+        String command = parts.get(0).toLowerCase();
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 1; i < parts.size(); i++) {
+            String part = parts.get(i);
+            int equals = part.indexOf('=');
+            if (equals <= 0) throw new IllegalArgumentException("Expected key=value but found '" + part + "'.");
+            fields.put(part.substring(0, equals).trim().toLowerCase(), part.substring(equals + 1).trim());
+        }
+
+        switch (command) {
+            case "add": {
+                Event draft = new Event(0, "", "", "", "", "", Collections.emptyList(), "");
+                applyFields(draft, fields);
+                String error = validateEvent(draft);
+                if (error != null) throw new IllegalArgumentException(error);
+                Event event = commitAdd(draft);
+                if (event == null) {
+                    String conflict = conflictError(draft);
+                    throw new IllegalArgumentException(conflict != null ? conflict : "Failed to add the event.");
+                }
+                lastAddedId = event.getId();
+                out.println("[SUCCESS] Event added successfully with ID: " + event.getId());
+                break;
+            }
+            case "update": {
+                int id = requireId(fields);
+                Event original = findEventById(id);
+                if (original == null) throw new IllegalArgumentException("Event with ID " + id + " not found.");
+                Event updated = new Event(original);
+                fields.remove("id");
+                applyFields(updated, fields);
+                String error = validateEvent(updated);
+                if (error != null) throw new IllegalArgumentException(error);
+                if (!commitUpdate(original, updated)) {
+                    String conflict = conflictError(updated);
+                    throw new IllegalArgumentException(conflict != null ? conflict : "Failed to update event ID " + id + ".");
+                }
+                out.println("[SUCCESS] Event ID " + id + " updated successfully.");
+                break;
+            }
+            case "delete": {
+                int id = requireId(fields);
+                Event event = findEventById(id);
+                if (event == null || !commitDelete(event)) throw new IllegalArgumentException("Event with ID " + id + " not found.");
+                out.println("[SUCCESS] Event ID " + id + " deleted.");
+                break;
+            }
+            case "history": {
+                int id = requireId(fields);
+                if (!printHistory(id)) throw new IllegalArgumentException("Event with ID " + id + " not found.");
+                break;
+            }
+            case "undo": {
+                int id = requireId(fields);
+                EventVersion restored = store.history(id);
+                String error = undoChange(id, restored);
+                if (error != null) throw new IllegalArgumentException(error);
+                out.println("[SUCCESS] Event ID " + id + (restored.deleted() ? " restored." : " reverted to its version before change " + restored.supersededAt() + "."));
+                break;
+            }
+            case "bulkupdate":
+            case "bulkdelete": {
+                boolean dryRun = Boolean.parseBoolean(fields.getOrDefault("dry-run", "false"));
+                fields.remove("dry-run");
+                if (command.equals("bulkupdate")) {
+                    bulkUpdate(fields, dryRun);
+                } else {
+                    bulkDelete(fields, dryRun);
+                }
+                break;
+            }
+            case "archive": {
+                if (archive == null) throw new IllegalArgumentException("Start the console with --archive <file> to archive events.");
+                String before = fields.get("before");
+                if (before == null) throw new IllegalArgumentException("Missing required field 'before'.");
+                try {
+                    int moved = archiveBefore(requireDate(before));
+                    if (moved < 0) throw new IllegalArgumentException("Some events changed while they were being archived. Nothing was moved; try again.");
+                    out.println("[SUCCESS] " + moved + " event(s) moved to the archive.");
+                } catch (IOException | UncheckedIOException e) {
+                    throw new IllegalArgumentException("Failed to write the event archive: " + e.getMessage());
+                }
+                break;
+            }
+            case "list": {
+                int from = fields.containsKey("from") ? requireDate(fields.get("from")) : Integer.MIN_VALUE;
+                int to = fields.containsKey("to") ? requireDate(fields.get("to")) : Integer.MAX_VALUE;
+                if (from > to) throw new IllegalArgumentException("'from' must not be after 'to'.");
+                printListing(from, to);
+                break;
+            }
+            case "import": {
+                String file = fields.get("file");
+                if (file == null) throw new IllegalArgumentException("Missing required field 'file'.");
+                try {
+                    importBookings(Paths.get(file), fields.containsKey("report") ? Paths.get(fields.get("report")) : null);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Import of " + file + " failed: " + e.getMessage());
+                }
+                break;
+            }
+            case "receipt": {
+                int id = requireId(fields);
+                if (!printReceiptFor(id)) throw new IllegalArgumentException("Event with ID " + id + " not found.");
+                break;
+            }
+            case "receipts": {
+                int from = fields.containsKey("from") ? requireDate(fields.get("from")) : Integer.MIN_VALUE;
+                int to = fields.containsKey("to") ? requireDate(fields.get("to")) : Integer.MAX_VALUE;
+                if (from > to) throw new IllegalArgumentException("'from' must not be after 'to'.");
+                String directory = fields.get("dir");
+                String file = fields.get("file");
+                if ((directory == null) == (file == null)) throw new IllegalArgumentException("Give exactly one of 'dir' or 'file'.");
+                try {
+                    int written = exportReceipts(from, to, directory == null ? null : Paths.get(directory), file == null ? null : Paths.get(file));
+                    out.println("[SUCCESS] Wrote " + written + " receipt(s) to " + (file != null ? file : directory) + ".");
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Writing receipts failed: " + e.getMessage());
+                }
+                break;
+            }
+            case "metrics":
+                metrics.print(out);
+                break;
+            case "free": {
+                String location = fields.get("location");
+                if (location == null || location.trim().isEmpty()) throw new IllegalArgumentException("Missing required field 'location'.");
+                int limit = SUGGESTED_DATES;
+                if (fields.containsKey("count")) {
+                    try {
+                        limit = Integer.parseInt(fields.get("count"));
+                    } catch (NumberFormatException e) {
+                        limit = -1;
+                    }
+                    if (limit <= 0) throw new IllegalArgumentException("'count' must be a positive number.");
+                }
+                int[] free;
+                String heading;
+                if (fields.containsKey("from") || fields.containsKey("to")) {
+                    if (!fields.containsKey("from") || !fields.containsKey("to")) throw new IllegalArgumentException("Give both 'from' and 'to'.");
+                    int from = requireDate(fields.get("from"));
+                    int to = requireDate(fields.get("to"));
+                    if (from > to) throw new IllegalArgumentException("'from' must not be after 'to'.");
+                    free = store.freeDays(location, from, to, fields.containsKey("count") ? limit : Integer.MAX_VALUE);
+                    heading = store.countFreeDays(location, from, to) + " free date(s) at " + location.trim() + " from " + fields.get("from") + " to " + fields.get("to");
+                } else {
+                    int after = fields.containsKey("after") ? requireDate(fields.get("after")) : (int) LocalDate.now().toEpochDay();
+                    free = store.freeDays(location, after + 1, Integer.MAX_VALUE, limit);
+                    heading = "Next " + free.length + " free date(s) at " + location.trim() + " after " + LocalDate.ofEpochDay(after);
+                }
+                out.println("[INFO] " + heading + ":");
+                for (int day : free) {
+                    out.println(LocalDate.ofEpochDay(day));
+                }
+                break;
+            }
+            case "search": {
+                String query = fields.get("q");
+                if (query == null || query.isEmpty()) throw new IllegalArgumentException("Missing required field 'q'.");
+                int limit = SEARCH_LIMIT;
+                if (fields.containsKey("limit")) {
+                    try {
+                        limit = Integer.parseInt(fields.get("limit"));
+                    } catch (NumberFormatException e) {
+                        limit = -1;
+                    }
+                    if (limit <= 0) throw new IllegalArgumentException("'limit' must be a positive number.");
+                }
+                printSearchResults(query, limit);
+                break;
+            }
+            case "analytics":
+                printAnalytics();
+                if (Boolean.parseBoolean(fields.getOrDefault("verify", "false")) && !verifyAnalytics()) {
+                    throw new IllegalArgumentException("Analytics totals do not match a full recount.");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command '" + command + "'. Use add, update, delete, bulkupdate, bulkdelete, history, undo, list, free, search, receipt, receipts, import, archive, metrics or analytics.");
+        }
+    }
+
+    public void importBookings(Path input, Path report) throws IOException {
+        long started = System.nanoTime();
+        BulkImport bulk = BulkImport.parse(input);
+        Event[] rows = bulk.rows;
+        String[] rejections = bulk.rejections;
+
+        // single deterministic pass in file order: the first valid row for a slot at a venue wins;
+        // claimed rows carry their row number plus one as a stand-in id
+        VenueSchedule claimed = new VenueSchedule();
+        int accepted = 0;
+        for (int row = 0; row < rows.length; row++) {
+            Event event = rows[row];
+            if (event == null) continue;
+            Event claim = new Event(row + 1, event);
+            Event earlier = claimed.conflict(claim);
+            String conflict;
+            if (earlier != null) {
+                rejections[row] = earlier.getLocation() + " is already booked at an overlapping time by row " + bulk.lineNumbers[earlier.getId() - 1] + " of this file.";
+                rows[row] = null;
+            } else if ((conflict = conflictError(event)) != null) {
+                metrics.dateConflict(event.getEpochDay());
+                rejections[row] = conflict;
+                rows[row] = null;
+            } else {
+                claimed.add(claim);
+                accepted++;
+            }
+        }
+
+        boolean wasDeferred = deferDurability;
+        deferDurability = true;
+        int nextId = idCounter.getAndAdd(accepted);
+        for (int row = 0; row < rows.length; row++) {
+            if (rows[row] == null) continue;
+            if (!store.tryAdd(new Event(nextId++, rows[row]))) {
+                rejections[row] = rows[row].getLocation() + " was booked at an overlapping time by another planner during the import.";
+                accepted--;
+            }
+        }
+        awaitDurability();
+        deferDurability = wasDeferred;
+        if (!wasDeferred && journal != null && pendingJournalSeq > 0) {
+            journal.awaitDurable(pendingJournalSeq);
+        }
+
+        int rejected = rows.length - accepted;
+        if (rejected > 0) {
+            Path reportFile = report != null ? report : Paths.get(input + ".rejected.csv");
+            try (PrintStream reportOut = new PrintStream(new BufferedOutputStream(Files.newOutputStream(reportFile), 1 << 16), false, StandardCharsets.UTF_8)) {
+                reportOut.println("line,reason,record");
+                for (int row = 0; row < rows.length; row++) {
+                    if (rejections[row] == null) continue;
+                    reportOut.println(bulk.lineNumbers[row] + "," + BulkImport.csvQuote(rejections[row]) + "," + BulkImport.csvQuote(bulk.raw(row)));
+                }
+            }
+            out.println("[INFO] Rejected rows written to " + reportFile);
+        }
+        metrics.record(Metrics.IMPORT, started);
+        out.println("[SUCCESS] Imported " + accepted + " event(s) from " + input + "; " + rejected + " row(s) rejected.");
+    }
+
+    private static class BulkImport {
+        private static final int CHUNK_ROWS = 2048;
+        private static final String[] CSV_COLUMNS = { "title", "date", "time", "location", "category", "inclusions", "description" };
+
+        private final List<String> lines;
+        private final boolean jsonLines;
+        private final int firstRow;
+        private final String[] header;
+        private final Event[] rows;
+        private final String[] rejections;
+        private final int[] lineNumbers;
+
+        private BulkImport(List<String> lines, boolean jsonLines) {
+            this.lines = lines;
+            this.jsonLines = jsonLines;
+            this.firstRow = jsonLines ? 0 : 1;
+            this.header = jsonLines || lines.isEmpty() ? new String[0] : parseCsvLine(lines.get(0)).toArray(new String[0]);
+            for (int i = 0; i < header.length; i++) {
+                header[i] = header[i].trim().toLowerCase();
+            }
+            int count = Math.max(0, lines.size() - firstRow);
+            this.rows = new Event[count];
+            this.rejections = new String[count];
+            this.lineNumbers = new int[count];
+        }
+
+        public static BulkImport parse(Path input) throws IOException {
+            String name = input.getFileName().toString().toLowerCase();
+            boolean jsonLines = name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json");
+            BulkImport bulk = new BulkImport(Files.readAllLines(input, StandardCharsets.UTF_8), jsonLines);
+            if (!jsonLines && !Arrays.asList(bulk.header).containsAll(Arrays.asList("title", "date", "time", "location", "category", "inclusions"))) {
+                throw new IOException("CSV header must name the columns " + String.join(",", CSV_COLUMNS));
+            }
+            ForkJoinPool.commonPool().invoke(bulk.new ParseChunk(0, bulk.rows.length));
+            return bulk;
+        }
+
+        public String raw(int row) {
+            return lines.get(row + firstRow);
+        }
+
+        private class ParseChunk extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int from;
+            private final int to;
+
+            ParseChunk(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > CHUNK_ROWS) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new ParseChunk(from, middle), new ParseChunk(middle, to));
+                    return;
+                }
+                for (int row = from; row < to; row++) {
+                    parseRow(row);
+                }
+            }
+        }
+
+        private void parseRow(int row) {
+            String line = raw(row);
+            lineNumbers[row] = row + firstRow + 1;
+            if (line.isBlank()) {
+                rejections[row] = "Empty line.";
+                return;
+            }
+            try {
+                Map<String, String> fields = jsonLines ? parseJsonObject(line) : csvFields(line);
+                fields.keySet().retainAll(Arrays.asList(CSV_COLUMNS));
+                Event draft = new Event(0, "", "", "", "", "", Collections.emptyList(), "");
+                applyFields(draft, fields);
+                String error = validateFields(draft);
+                if (error != null) {
+                    rejections[row] = error;
+                } else {
+                    rows[row] = draft;
+                }
+            } catch (IllegalArgumentException e) {
+                rejections[row] = e.getMessage();
+            }
+        }
+
+        private Map<String, String> csvFields(String line) {
+            List<String> values = parseCsvLine(line);
+            if (values.size() > header.length) throw new IllegalArgumentException("Row has more columns than the header.");
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                fields.put(header[i], values.get(i).trim());
+            }
+            return fields;
+        }
+
+        private static List<String> parseCsvLine(String line) {
+            List<String> values = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            if (quoted) throw new IllegalArgumentException("Unterminated quoted field.");
+            values.add(current.toString());
+            return values;
+        }
+
+        private static Map<String, String> parseJsonObject(String line) {
+            JsonCursor cursor = new JsonCursor(line);
+            Map<String, String> fields = new HashMap<>();
+            cursor.expect('{');
+            if (!cursor.consume('}')) {
+                do {
+                    String key = cursor.string().toLowerCase();
+                    cursor.expect(':');
+                    fields.put(key, cursor.value());
+                } while (cursor.consume(','));
+                cursor.expect('}');
+            }
+            cursor.end();
+            return fields;
+        }
+
+        private static class JsonCursor {
+            private final String text;
+            private int position;
+
+            JsonCursor(String text) {
+                this.text = text;
+            }
+
+            private void skipSpace() {
+                while (position < text.length() && Character.isWhitespace(text.charAt(position))) position++;
+            }
+
+            boolean consume(char c) {
+                skipSpace();
+                if (position < text.length() && text.charAt(position) == c) {
+                    position++;
+                    return true;
+                }
+                return false;
+            }
+
+            void expect(char c) {
+                if (!consume(c)) throw new IllegalArgumentException("Malformed JSON: expected '" + c + "' at column " + (position + 1) + ".");
+            }
+
+            void end() {
+                skipSpace();
+                if (position != text.length()) throw new IllegalArgumentException("Malformed JSON: unexpected text at column " + (position + 1) + ".");
+            }
+
+            String value() {
+                skipSpace();
+                if (position >= text.length()) throw new IllegalArgumentException("Malformed JSON: missing value.");
+                char c = text.charAt(position);
+                if (c == '"') return string();
+                if (c == '[') {
+                    position++;
+                    List<String> items = new ArrayList<>();
+                    if (!consume(']')) {
+                        do {
+                            items.add(value());
+                        } while (consume(','));
+                        expect(']');
+                    }
+                    return String.join(";", items);
+                }
+                int start = position;
+                while (position < text.length() && ",}]".indexOf(text.charAt(position)) < 0) position++;
+                String literal = text.substring(start, position).trim();
+                return literal.equals("null") ? "" : literal;
+            }
+
+            String string() {
+                expect('"');
+                StringBuilder value = new StringBuilder();
+                while (position < text.length()) {
+                    char c = text.charAt(position++);
+                    if (c == '"') return value.toString();
+                    if (c != '\\') {
+                        value.append(c);
+                        continue;
+                    }
+                    if (position >= text.length()) break;
+                    char escaped = text.charAt(position++);
+                    switch (escaped) {
+                        case 'n': value.append('\n'); break;
+                        case 't': value.append('\t'); break;
+                        case 'r': value.append('\r'); break;
+                        case 'b': value.append('\b'); break;
+                        case 'f': value.append('\f'); break;
+                        case 'u':
+                            if (position + 4 > text.length()) throw new IllegalArgumentException("Malformed JSON: bad unicode escape.");
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                            position += 4;
+                            break;
+                        default: value.append(escaped);
+                    }
+                }
+                throw new IllegalArgumentException("Malformed JSON: unterminated string.");
+            }
+        }
+
+        static String csvQuote(String value) {
+            return "\"" + value.replace("\"", "\"\"").replace("\n", "\\n") + "\"";
+        }
+    }
+
+    private static void applyFields(Event event, Map<String, String> fields) {
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            String value = field.getValue();
+            switch (field.getKey()) {
+                case "title": event.setTitle(value); break;
+                case "date": event.setDate(value); break;
+                case "time": event.setTime(value); break;
+                case "location": event.setLocation(value); break;
+                case "description": event.setDescription(value); break;
+                case "category":
+                    value = canonicalCategory(value);
+                    if (!value.equals(event.getCategory())) {
+                        event.setCategory(value);
+                        event.setInclusionMask(0L);
+                    }
+                    break;
+                case "inclusions":
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown field '" + field.getKey() + "'.");
+            }
+        }
+        String inclusions = fields.get("inclusions");
+        if (inclusions != null) {
+            InclusionCatalog catalog = InclusionCatalog.forCategory(event.getCategory());
+            long mask = 0;
+            for (String item : inclusions.split(";")) {
+                String name = item.trim().toUpperCase();
+                if (name.isEmpty()) continue;
+                int ordinal = catalog.ordinalOf(name);
+                if (ordinal < 0) throw new IllegalArgumentException("Unknown inclusion '" + item.trim() + "' for category '" + event.getCategory() + "'.");
+                mask |= 1L << ordinal;
+            }
+            event.setInclusionMask(mask);
+        }
+    }
+
+    private static int requireId(Map<String, String> fields) {
+        String value = fields.get("id");
+        if (value == null) throw new IllegalArgumentException("Missing required field 'id'.");
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id '" + value + "'.");
+        }
+    }
+
+    private static int requireDate(String value) {
+        int epochDay = parseEpochDay(value);
+        if (epochDay == NO_DATE) throw new IllegalArgumentException("Invalid date '" + value + "'. Use the format YYYY-MM-DD.");
+        return epochDay;
+    }
+
+    private static List<String> splitCommand(String line) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char escaped = line.charAt(++i);
+                current.append(escaped == 'n' ? '\n' : escaped);
+            } else if (c == '|') {
+                parts.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        parts.add(current.toString().trim());
+        return parts;
+    }
+
+    private void displayMenu() {
+        out.println("\n" + "-".repeat(50));
+        out.println("  EVENT ORGANIZER MENU");
+        out.println("-".repeat(50));
+        out.println("1. Add New Event");
+        out.println("2. View All Events");
+        out.println("3. Update Event");
+        out.println("4. Delete Event");
+        out.println("5. Generate Receipt");
+        out.println("6. Exit");
+        out.println("7. View Metrics");
+        out.println("8. Booking Analytics");
+        out.println("9. Search Events");
+        if (archive != null) {
+            out.println("10. Archive Past Events");
+        }
+        out.println("-".repeat(50));
+    }
+
+    private void addEvent() {
+        out.println("\n" + "=".repeat(50));
+        out.println("--- ADD NEW EVENT ---");
+        
+        String title, date, time, location, category, description;
+        long inclusion;
+
+        out.print("1. Enter Reservation Name (Required): ");
+        title = readLine().trim();
+        while (title.isEmpty()) {
+            out.print("[ERROR] Reservation Name is required. Re-enter: ");
+            title = readLine().trim();
+        }
+
+        out.print("2. Enter Date (YYYY-MM-DD, Required): ");
+        date = readDate();
+
+        out.print("3. Enter Time (HH:MM, Required): ");
+        time = readTime();
+
+        out.print("4. Enter Location (Required): ");
+        location = readLine().trim();
+        while (location.isEmpty()) {
+            out.print("[ERROR] Location is required. Re-enter: ");
+            location = readLine().trim();
+        }
+
+        category = getCategoryChoice(null);
+
+        Event draft = new Event(0, title, date, time, location, category, Collections.emptyList(), "");
+        rescheduleOnConflict(draft);
+        
+        inclusion = getInclusionChoices(category, 0L);
+        
+        out.println("7. Enter Description (Optional). Press Enter to skip.");
+        out.print("> ");
+        description = readLine().trim();
+        
+        draft.setInclusionMask(inclusion);
+        draft.setDescription(description);
+        Event newEvent = commitAdd(draft);
+        if (newEvent == null) {
+            out.println("\n[ERROR] " + location + " was just booked at an overlapping time by another planner. The event was not added.");
+            return;
+        }
+
+        out.println("\n[SUCCESS] Event added successfully with ID: " + newEvent.getId());
+    }
+
+    private String readDate() {
+        String date = readLine().trim();
+        while (date.isEmpty() || parseEpochDay(date) == NO_DATE) {
+            if (date.isEmpty()) {
+                out.print("[ERROR] Date is required. Re-enter: ");
+            } else {
+                out.print("[ERROR] Invalid date '" + date + "'. Use the format YYYY-MM-DD. Re-enter: ");
+            }
+            date = readLine().trim();
+        }
+        return date;
+    }
+
+    private String readTime() {
+        String time = readLine().trim();
+        while (time.isEmpty() || parseMinuteOfDay(time) == NO_TIME) {
+            if (time.isEmpty()) {
+                out.print("[ERROR] Time is required. Re-enter: ");
+            } else {
+                out.print("[ERROR] Invalid time '" + time + "'. Use the 24-hour format HH:MM. Re-enter: ");
+            }
+            time = readLine().trim();
+        }
+        return time;
+    }
+
+    // the slot is only known once the category fixes how long the booking holds its venue
+    private void rescheduleOnConflict(Event event) {
+        for (Event booked = findConflict(event); booked != null; booked = findConflict(event)) {
+            metrics.dateConflict(event.getEpochDay());
+            out.println("[ERROR] " + conflictMessage(event, booked));
+            String suggested = suggestFreeDates(event);
+            if (!suggested.isEmpty()) out.println("[INFO] " + suggested);
+            out.print("Please choose another date or time. Re-enter Date (YYYY-MM-DD): ");
+            event.setDate(readDate());
+            out.print("Re-enter Time (HH:MM): ");
+            event.setTime(readTime());
+        }
+    }
+    
+    // the venue's next whole free days from the requested one on, read from its day bitmap
+    private String suggestFreeDates(Event event) {
+        int[] free = store.freeDays(event.getLocation(), event.getEpochDay(), Integer.MAX_VALUE, SUGGESTED_DATES);
+        if (free.length == 0) return "";
+        StringBuilder dates = new StringBuilder("Next free dates at " + event.getLocation().trim() + ": ");
+        for (int i = 0; i < free.length; i++) {
+            if (i > 0) dates.append(", ");
+            dates.append(LocalDate.ofEpochDay(free[i]));
+        }
+        return dates.append('.').toString();
+    }
+
+    private String getCategoryChoice(String currentCategory) {
+        out.println("\n5. Choose Category:");
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            out.printf("   [%d] %s\n", i + 1, CATEGORIES[i]);
+        }
+        
+        int defaultIndex = 0;
+        if (currentCategory != null) {
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                if (CATEGORIES[i].equalsIgnoreCase(currentCategory)) {
+                    defaultIndex = i;
+                    break;
+                }
+            }
+        }
+        
+        out.printf("   Enter category number (Default: %d - %s): ", defaultIndex + 1, CATEGORIES[defaultIndex]);
+        String catChoice = readLine().trim();
+
+        if (catChoice.isEmpty()) {
+            return CATEGORIES[defaultIndex];
+        }
+
+        try {
+            int index = Integer.parseInt(catChoice) - 1;
+            if (index >= 0 && index < CATEGORIES.length) {
+                return CATEGORIES[index];
+            } else {
+                out.println("[INFO] Invalid category number. Using default category.");
+                return CATEGORIES[defaultIndex];
+            }
+        } catch (NumberFormatException e) {
+            out.println("[INFO] Invalid input (not a number). Using default category.");
+            return CATEGORIES[defaultIndex];
+        }
+    }
+    
+    long getInclusionChoices(String category, long currentInclusions) {
+        long selected = currentInclusions;
+        InclusionCatalog catalog = InclusionCatalog.forCategory(category);
+        
+        if (catalog.size() == 0) {
+            out.println("[INFO] No specific inclusions defined for category: " + category);
+            return 0L;
+        }
+
+        out.printf("\n6. Choose Inclusions for %s (Select up to %d items):\n", category.toUpperCase(), MAX_INCLUSIONS);
+        out.println("-".repeat(50));
+        
+        for (int group = 0; group < catalog.groupCount(); group++) {
+            out.printf("  --- %s ---\n", catalog.groupName(group));
+            for (int ordinal = catalog.groupStart(group); ordinal < catalog.groupEnd(group); ordinal++) {
+                String status = (selected & (1L << ordinal)) != 0 ? "[X]" : "[ ]";
+                out.printf("   %s [%2d] %s\n", status, ordinal + 1, catalog.item(ordinal));
+            }
+        }
+        out.println("-".repeat(50));
+
+        String currentList = selected == 0 ? "None" : String.join(", ", catalog.itemsOf(selected));
+        out.printf("   CURRENT SELECTIONS (%d/%d): %s\n", Long.bitCount(selected), MAX_INCLUSIONS, currentList);
+        out.println("   Enter numbers to toggle (e.g., '1 5 10'), or 'D' when Done:");
+        
+        while (true) {
+            out.print("> ");
+            String input = readLine().trim().toUpperCase();
+
+            if (input.equals("D") || input.isEmpty()) {
+                if (selected == 0) {
+                    out.println("[ERROR] You must select at least one inclusion to proceed. Enter selection numbers or 'D' to finish if you have selections.");
+                    continue;
+                }
+                break;
+            }
+
+            try {
+                String[] parts = input.split("\\s+");
+                for (String part : parts) {
+                    if (part.isEmpty()) continue;
+                    int ordinal = Integer.parseInt(part) - 1;
+
+                    if (ordinal >= 0 && ordinal < catalog.size()) {
+                        long bit = 1L << ordinal;
+                        String item = catalog.item(ordinal);
+                        if ((selected & bit) != 0) {
+                            selected &= ~bit;
+                            out.printf("[INFO] Removed: %s\n", item);
+                        } else if (Long.bitCount(selected) < MAX_INCLUSIONS) {
+                            selected |= bit;
+                            out.printf("[INFO] Added: %s\n", item);
+                        } else {
+                            out.println("[INFO] Maximum " + MAX_INCLUSIONS + " inclusions reached. Cannot add: " + item);
+                        }
+                    } else {
+                        out.println("[INFO] Invalid number: " + part + ". Please enter a number between 1 and " + catalog.size() + ".");
+                    }
+                }
+                
+                currentList = selected == 0 ? "None" : String.join(", ", catalog.itemsOf(selected));
+                out.printf("   [Current selections (%d/%d): %s]\n", Long.bitCount(selected), MAX_INCLUSIONS, currentList);
+
+            } catch (NumberFormatException e) {
+                out.println("[ERROR] Invalid input. Please enter numbers separated by spaces or 'D'.");
+            }
+        }
+        return selected;
+    }
+
+    private void viewEvents() {
+        printListing(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    void printListing(int fromEpochDay, int toEpochDay) {
+        long started = System.nanoTime();
+        EventSnapshot snapshot = store.snapshot();
+        int[] archivedRows = archive == null ? new int[0] : archive.sortedRows(fromEpochDay, toEpochDay);
+
+        out.println("\n" + "=".repeat(80));
+        out.println("--- ALL SCHEDULED EVENTS ---");
+        out.println("-".repeat(80));
+        
+        if (!snapshot.between(fromEpochDay, toEpochDay).iterator().hasNext() && archivedRows.length == 0) {
+            out.println("No events found in the database.");
+            out.println("=".repeat(80));
+            return;
+        }
+
+        String header = String.format("| %-5s | %-25s | %-10s | %-5s | %-15s | %-15s |",
+            "ID", "Reservation Name", "Date", "Time", "Location", "Category"
+        );
+        out.println(header);
+        out.println("-".repeat(80));
+
+        // the partitions tile the range, so each archived row is merged into the one holding its day. A wave of
+        // partitions renders in parallel, each run into a buffer of its own, and the buffers are written in order
+        List<EventSnapshot.Partition> partitions = snapshot.partitions(fromEpochDay, toEpochDay);
+        if (partitions.isEmpty()) renderListing(Collections.emptyIterator(), archivedRows, 0, archivedRows.length, out);
+        for (int first = 0; first < partitions.size(); ) {
+            int last = first;
+            long events = 0;
+            while (last < partitions.size() && (last == first || events < LIST_WAVE)) {
+                events += partitions.get(last++).size();
+            }
+            List<EventSnapshot.Partition> wave = partitions.subList(first, last);
+            if (wave.size() == 1 || events <= EventSnapshot.SCAN_GRAIN) {
+                renderListing(wave.get(0).firstDay(), wave.get(wave.size() - 1).lastDay(), snapshot, archivedRows, out);
+            } else {
+                List<byte[]> chunks = EventSnapshot.scan(wave, partition -> {
+                    ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+                    renderListing(partition.firstDay(), partition.lastDay(), snapshot, archivedRows, new PrintStream(chunk));
+                    return List.of(chunk.toByteArray());
+                }, EventOrganizerConsole::joined);
+                for (byte[] chunk : chunks) {
+                    out.write(chunk, 0, chunk.length);
+                }
+            }
+            first = last;
+        }
+        out.println("=".repeat(80));
+        metrics.record(Metrics.LIST, started);
+    }
+
+    private void renderListing(int fromEpochDay, int toEpochDay, EventSnapshot snapshot, int[] archivedRows, PrintStream target) {
+        int from = firstArchivedAfter(archivedRows, fromEpochDay - 1L);
+        int to = firstArchivedAfter(archivedRows, toEpochDay);
+        renderListing(snapshot.between(fromEpochDay, toEpochDay).iterator(), archivedRows, from, to, target);
+    }
+
+    private void renderListing(Iterator<Event> live, int[] archivedRows, int from, int to, PrintStream target) {
+        RowRenderer rows = RowRenderer.forCurrentThread();
+        Event next = live.hasNext() ? live.next() : null;
+        for (int i = from; i < to; i++) {
+            int row = archivedRows[i];
+            while (next != null && comesBefore(next, row)) {
+                rows.append(next, target);
+                next = live.hasNext() ? live.next() : null;
+            }
+            rows.appendLine(formatRow(archive.id(row), archive.title(row), archive.date(row), archive.time(row), archive.location(row), archive.category(row)), target);
+        }
+        while (next != null) {
+            rows.append(next, target);
+            next = live.hasNext() ? live.next() : null;
+        }
+        rows.flush(target);
+    }
+
+    // the first of the day-ordered archived rows on a later day than the one given
+    private int firstArchivedAfter(int[] archivedRows, long epochDay) {
+        int low = 0;
+        int high = archivedRows.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (archive.epochDay(archivedRows[middle]) <= epochDay) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    private static <T> List<T> joined(List<T> earlier, List<T> later) {
+        List<T> all = new ArrayList<>(earlier.size() + later.size());
+        all.addAll(earlier);
+        all.addAll(later);
+        return all;
+    }
+
+    private boolean comesBefore(Event event, int archivedRow) {
+        int dayCompare = Integer.compare(event.getEpochDay(), archive.epochDay(archivedRow));
+        if (dayCompare != 0) return dayCompare < 0;
+        return event.getMinuteOfDay() <= archive.minuteOfDay(archivedRow);
+    }
+
+    private void searchEvents() {
+        out.println("\n" + "=".repeat(50));
+        out.println("--- SEARCH EVENTS ---");
+        out.print("Search titles, locations and descriptions (or blank to cancel): ");
+        String query = readLine().trim();
+        if (query.isEmpty()) {
+            out.println("[INFO] Search cancelled.");
+            return;
+        }
+        printSearchResults(query, SEARCH_LIMIT);
+    }
+
+    private void printSearchResults(String query, int limit) {
+        long started = System.nanoTime();
+        int[] ids = searchIndex.search(query, limit);
+        List<Event> found = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Event event = findEventById(id);
+            if (event != null) found.add(event);
+        }
+        metrics.record(Metrics.SEARCH, started);
+
+        out.println("\n" + "=".repeat(80));
+        out.println("--- SEARCH RESULTS FOR \"" + query + "\" ---");
+        out.println("-".repeat(80));
+        if (found.isEmpty()) {
+            out.println("No events match your search.");
+            out.println("=".repeat(80));
+            return;
+        }
+        out.println(String.format("| %-5s | %-25s | %-10s | %-5s | %-15s | %-15s |",
+            "ID", "Reservation Name", "Date", "Time", "Location", "Category"
+        ));
+        out.println("-".repeat(80));
+        for (Event event : found) {
+            out.println(event);
+        }
+        out.println("=".repeat(80));
+        out.println("[INFO] " + found.size() + " best match(es) shown, best first.");
+    }
+
+    private void showAnalytics() {
+        printAnalytics();
+        out.print("Verify the figures against a full recount? (yes/no): ");
+        if (readLine().trim().equalsIgnoreCase("yes")) {
+            verifyAnalytics();
+        }
+    }
+
+    private void printAnalytics() {
+        AnalyticsTally tally = store.quiesced(snapshot -> analytics.snapshot());
+        double total = Math.max(1, tally.total);
+
+        out.println("\n" + "=".repeat(80));
+        out.println("--- BOOKING ANALYTICS ---");
+        out.println("Live events: " + tally.total + " (archived events are not counted)");
+        out.println("-".repeat(80));
+        out.println("Bookings by category:");
+        for (int category = 0; category < CATEGORIES.length; category++) {
+            out.printf("  %-28s %8d  (%5.1f%%)\n", CATEGORIES[category], tally.categories[category], tally.categories[category] * 100 / total);
+        }
+
+        out.println("-".repeat(80));
+        out.println("Inclusion popularity by group:");
+        for (int category = 0; category < CATEGORIES.length; category++) {
+            InclusionCatalog catalog = InclusionCatalog.forCategory(CATEGORIES[category]);
+            if (catalog.groupCount() == 0) continue;
+            out.println("  " + CATEGORIES[category]);
+            long[] items = tally.inclusions[category];
+            for (int group = 0; group < catalog.groupCount(); group++) {
+                long selections = 0;
+                int top = catalog.groupStart(group);
+                for (int ordinal = catalog.groupStart(group); ordinal < catalog.groupEnd(group); ordinal++) {
+                    selections += items[ordinal];
+                    if (items[ordinal] > items[top]) top = ordinal;
+                }
+                out.printf("    %-26s %8d selections   top: %s (%d)\n", catalog.groupName(group), selections,
+                        selections == 0 ? "-" : catalog.item(top), items[top]);
+            }
+        }
+
+        out.println("-".repeat(80));
+        int shownMonths = Math.min(ANALYTICS_MONTHS, tally.months.size());
+        out.println("Bookings by month" + (shownMonths < tally.months.size() ? " (latest " + shownMonths + " of " + tally.months.size() + "):" : ":"));
+        int skip = tally.months.size() - shownMonths;
+        for (Map.Entry<Integer, Long> month : tally.months.entrySet()) {
+            if (skip-- > 0) continue;
+            out.printf("  %-28s %8d\n", monthLabel(month.getKey()), month.getValue());
+        }
+
+        out.println("-".repeat(80));
+        List<Map.Entry<String, Long>> busiest = new ArrayList<>(tally.locations.entrySet());
+        busiest.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        out.println("Location utilization" + (busiest.size() > ANALYTICS_LOCATIONS ? " (top " + ANALYTICS_LOCATIONS + " of " + busiest.size() + "):" : ":"));
+        for (Map.Entry<String, Long> location : busiest.subList(0, Math.min(ANALYTICS_LOCATIONS, busiest.size()))) {
+            out.printf("  %-28s %8d  (%5.1f%% of bookings)\n", tally.locationNames.getOrDefault(location.getKey(), location.getKey()), location.getValue(), location.getValue() * 100 / total);
+        }
+        out.println("=".repeat(80));
+    }
+
+    private boolean verifyAnalytics() {
+        long started = System.nanoTime();
+        // the running totals and the snapshot they are checked against are taken with no change in between
+        Map.Entry<AnalyticsTally, EventSnapshot> cut = store.quiesced(snapshot -> Map.entry(analytics.snapshot(), snapshot));
+        AnalyticsTally recount = Analytics.recount(cut.getValue());
+        List<String> differences = cut.getKey().differencesFrom(recount);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        if (differences.isEmpty()) {
+            out.println("[SUCCESS] Running totals match a full recount of " + recount.total + " event(s) (" + millis + " ms).");
+            return true;
+        }
+        out.println("[ERROR] Running totals differ from a full recount (running vs recounted):");
+        for (String difference : differences) {
+            out.println("  " + difference);
+        }
+        return false;
+    }
+
+    private void archiveEvents() {
+        out.println("\n" + "=".repeat(50));
+        out.println("--- ARCHIVE PAST EVENTS ---");
+        out.print("Archive every event dated before (YYYY-MM-DD, or blank to cancel): ");
+        String cutoffInput = readLine().trim();
+        if (cutoffInput.isEmpty()) {
+            out.println("[INFO] Archive operation cancelled.");
+            return;
+        }
+        int cutoff = parseEpochDay(cutoffInput);
+        if (cutoff == NO_DATE) {
+            out.println("[ERROR] Invalid date '" + cutoffInput + "'. Use the format YYYY-MM-DD.");
+            return;
+        }
+
+        try {
+            int moved = archiveBefore(cutoff);
+            if (moved < 0) {
+                out.println("[ERROR] Some events changed while they were being archived. Nothing was moved; try again.");
+                return;
+            }
+            out.println("\n[SUCCESS] " + moved + " event(s) moved to the archive.");
+        } catch (IOException | UncheckedIOException e) {
+            out.println("[ERROR] Failed to write the event archive: " + e.getMessage());
+        }
+    }
+
+    // moves the cold months before the cutoff to the archive and returns how many events went, or -1 when one of
+    // them changed meanwhile; the walk covers only those months, and they leave the store in one step
+    private int archiveBefore(int cutoff) throws IOException {
+        long started = System.nanoTime();
+        List<Event> toArchive = new ArrayList<>();
+        // one run at a time across sessions, so two runs never append rows for the same events and the
+        // loser's rollback cannot touch rows the winner archived
+        synchronized (archive) {
+            for (Event event : store.snapshot().between(Integer.MIN_VALUE, cutoff - 1)) {
+                toArchive.add(event);
+            }
+            int[] rows = new int[toArchive.size()];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = archive.append(toArchive.get(i));
+            }
+            archive.force();
+            if (!store.retire(toArchive)) {
+                for (int row : rows) archive.markDeleted(row);
+                archive.force();
+                return -1;
+            }
+        }
+        awaitDurability();
+        metrics.record(Metrics.ARCHIVE, started);
+        return toArchive.size();
+    }
+
+    Event findEventById(int id) {
+        long started = System.nanoTime();
+        Event event = store.get(id);
+        metrics.record(Metrics.FIND_BY_ID, started);
+        return event;
+    }
+    
+    private int getValidEventId(String action) {
+        out.print("Enter the ID of the event to " + action + " (or 0 to cancel): ");
+        try {
+            String input = readLine().trim();
+            if (input.isEmpty()) return -1; 
+            int id = Integer.parseInt(input);
+            return id;
+        } catch (NumberFormatException e) {
+            out.println("[ERROR] Invalid input. Please enter a valid number for the ID.");
+            return -1;
+        }
+    }
+
+    private void updateEvent() {
+        viewEvents();
+        out.println("\n" + "=".repeat(50));
+        out.println("--- UPDATE EXISTING EVENT ---");
+        
+        int eventId = getValidEventId("update");
+        if (eventId <= 0) {
+            if (eventId == 0) {
+                out.println("[INFO] Update operation cancelled.");
+            }
+            return;
+        }
+
+        Event original = findEventById(eventId);
+        if (original == null) {
+            out.println("[ERROR] Event with ID " + eventId + " not found.");
+            return;
+        }
+        Event eventToUpdate = new Event(original);
+
+        out.println("\nEditing Event ID " + eventId + ": '" + eventToUpdate.getTitle() + "'");
+        out.println("Leave fields blank to keep the current value.");
+
+        out.printf("1. Reservation Name (Current: %s): ", eventToUpdate.getTitle());
+        String title = readLine().trim();
+        if (!title.isEmpty()) eventToUpdate.setTitle(title);
+
+        String oldDate = eventToUpdate.getDate();
+        boolean dateValid = false;
+        
+        while (!dateValid) {
+            out.printf("2. Date (YYYY-MM-DD, Current: %s): ", oldDate);
+            String newDateInput = readLine().trim();
+            
+            if (newDateInput.isEmpty()) {
+                dateValid = true; 
+            } else {
+                if (parseEpochDay(newDateInput) == NO_DATE) {
+                    out.println("[ERROR] Invalid date '" + newDateInput + "'. Use the format YYYY-MM-DD.");
+                } else {
+                    eventToUpdate.setDate(newDateInput);
+                    dateValid = true;
+                }
+            }
+        }
+
+        while (true) {
+            out.printf("3. Time (HH:MM, Required. Current: %s): ", eventToUpdate.getTime());
+            String time = readLine().trim();
+            if (time.isEmpty()) break;
+            if (parseMinuteOfDay(time) == NO_TIME) {
+                out.println("[ERROR] Invalid time '" + time + "'. Use the 24-hour format HH:MM.");
+                continue;
+            }
+            eventToUpdate.setTime(time);
+            break;
+        }
+        
+        out.printf("4. Location (Required. Current: %s): ", eventToUpdate.getLocation());
+        String location = readLine().trim();
+        if (!location.isEmpty()) eventToUpdate.setLocation(location);
+        
+        String oldCategory = eventToUpdate.getCategory();
+        String newCategory = getCategoryChoice(oldCategory);
+        eventToUpdate.setCategory(newCategory);
+        rescheduleOnConflict(eventToUpdate);
+        
+        long startingInclusions = oldCategory.equals(newCategory) ? eventToUpdate.getInclusionMask() : 0L;
+        long newInclusion = getInclusionChoices(newCategory, startingInclusions);
+        eventToUpdate.setInclusionMask(newInclusion);
+
+        String currentDescriptionDisplay = eventToUpdate.getDescription().isEmpty() ? "None" : eventToUpdate.getDescription().replaceAll("\n", " / ");
+        out.printf("7. Description (Current: %s): ", currentDescriptionDisplay);
+        out.println("\nEnter new description (or just press Enter to keep current):");
+        out.print("> ");
+        String description = readLine().trim();
+        if (!description.isEmpty()) eventToUpdate.setDescription(description);
+
+        if (!commitUpdate(original, eventToUpdate)) {
+            if (findConflict(eventToUpdate) != null) {
+                out.println("\n[ERROR] " + eventToUpdate.getLocation() + " was just booked at an overlapping time by another planner. Event ID " + eventId + " was not updated.");
+            } else {
+                out.println("\n[ERROR] Failed to update event ID " + eventId + ". Event may have been modified or already removed.");
+            }
+            return;
+        }
+
+        out.println("\n[SUCCESS] Event ID " + eventId + " updated successfully.");
+    }
+
+    private void deleteEvent() {
+        viewEvents();
+        out.println("\n" + "=".repeat(50));
+        out.println("--- DELETE EVENT ---");
+
+        int eventId = getValidEventId("delete");
+        if (eventId <= 0) {
+            if (eventId == 0) {
+                out.println("[INFO] Deletion operation cancelled.");
+            }
+            return;
+        }
+
+        Event eventToDelete = findEventById(eventId);
+        if (eventToDelete == null) {
+            out.println("[ERROR] Event with ID " + eventId + " not found.");
+            return;
+        }
+
+        out.print("Are you sure you want to delete event ID " + eventId + " ('" + eventToDelete.getTitle() + "')? (yes/no): ");
+        String confirm = readLine().trim().toLowerCase();
+
+        if (confirm.equals("yes")) {
+            if (commitDelete(eventToDelete)) {
+                out.println("\n[SUCCESS] Event ID " + eventId + " deleted.");
+            } else {
+                out.println("\n[ERROR] Failed to delete event ID " + eventId + ". Event may have been modified or already removed.");
+            }
+        } else {
+            out.println("\n[INFO] Deletion cancelled.");
+        }
+    }
+    
+    private void generateReceipt() {
+        out.println("\n" + "=".repeat(60));
+        out.println("--- GENERATE EVENT RECEIPT ---");
+        
+        int eventId = getValidEventId("generate a receipt for");
+        if (eventId <= 0) {
+            if (eventId == 0) {
+                out.println("[INFO] Receipt generation cancelled.");
+            }
+            return;
+        }
+
+        if (!printReceiptFor(eventId)) {
+            out.println("[ERROR] Event with ID " + eventId + " not found.");
+        }
+    }
+
+    boolean printReceiptFor(int eventId) {
+        long started = System.nanoTime();
+        Event event = findEventById(eventId);
+        if (event != null) {
+            printReceipt(event.getId(), event.getTitle(), event.getCategory(), event.getDate(), event.getTime(), event.getLocation(), event.getInclusionMask(), event.getDescription());
+            metrics.record(Metrics.RECEIPT, started);
+            return true;
+        }
+        int row = archive == null ? -1 : archive.findRow(eventId);
+        if (row < 0) return false;
+        printReceipt(archive.id(row), archive.title(row), archive.category(row), archive.date(row), archive.time(row), archive.location(row),
+                archive.inclusionMask(row), archive.description(row));
+        metrics.record(Metrics.RECEIPT, started);
+        return true;
+    }
+
+    private void printReceipt(int id, String title, String category, String date, String time, String location, long inclusion, String description) {
+        out.append(ReceiptRenderer.forCurrentThread().render(id, title, category, date, time, location, inclusion, description));
+    }
+
+    public int exportReceipts(int fromEpochDay, int toEpochDay, Path directory, Path combinedFile) throws IOException {
+        long started = System.nanoTime();
+        List<Event> live = new ArrayList<>();
+        for (Event event : store.snapshot().between(fromEpochDay, toEpochDay)) {
+            live.add(event);
+        }
+        int[] archivedRows = archive == null ? new int[0] : archive.sortedRows(fromEpochDay, toEpochDay);
+
+        // merge live and archived events into one schedule-ordered run, as the listing does
+        Event[] events = new Event[live.size() + archivedRows.length];
+        int[] rows = new int[events.length];
+        int position = 0;
+        int nextLive = 0;
+        for (int row : archivedRows) {
+            while (nextLive < live.size() && comesBefore(live.get(nextLive), row)) {
+                events[position++] = live.get(nextLive++);
+            }
+            rows[position++] = row;
+        }
+        while (nextLive < live.size()) {
+            events[position++] = live.get(nextLive++);
+        }
+
+        ReceiptExport export = new ReceiptExport(events, rows, archive);
+        if (combinedFile != null) {
+            export.writeCombined(combinedFile);
+        } else {
+            Files.createDirectories(directory);
+            export.writeFiles(directory);
+        }
+        metrics.record(Metrics.RECEIPTS, started);
+        return events.length;
+    }
+
+    // listing rows laid out from each event's fields into one buffer per thread, encoded and written in large pieces
+    private static class RowRenderer {
+        private static final ThreadLocal<RowRenderer> RENDERERS = ThreadLocal.withInitial(RowRenderer::new);
+        // the charset of the console's PrintStreams, so encoded rows can be written to them as they are
+        private static final Charset ROW_CHARSET = Charset.defaultCharset();
+        private static final String ROW_END = System.lineSeparator();
+        private static final int FLUSH_AT = 1 << 15;
+
+        private final CharsetEncoder encoder = ROW_CHARSET.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private char[] chars = new char[FLUSH_AT + 256];
+        private int length;
+        private ByteBuffer bytes = ByteBuffer.allocate(0);
+
+        public static RowRenderer forCurrentThread() {
+            RowRenderer renderer = RENDERERS.get();
+            renderer.length = 0;
+            return renderer;
+        }
+
+        public void append(Event event, PrintStream out) {
+            event.appendRow(this);
+            append(ROW_END);
+            if (length >= FLUSH_AT) flush(out);
+        }
+
+        public void appendLine(String line, PrintStream out) {
+            append(line).append(ROW_END);
+            if (length >= FLUSH_AT) flush(out);
+        }
+
+        public int length() { return length; }
+
+        public RowRenderer truncate(int newLength) {
+            length = newLength;
+            return this;
+        }
+
+        private void ensure(int more) {
+            if (length + more > chars.length) chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + more));
+        }
+
+        public RowRenderer append(char c) {
+            ensure(1);
+            chars[length++] = c;
+            return this;
+        }
+
+        public RowRenderer append(String text) {
+            if (text == null) text = "null";
+            ensure(text.length());
+            text.getChars(0, text.length(), chars, length);
+            length += text.length();
+            return this;
+        }
+
+        public RowRenderer append(int value) {
+            return append(Integer.toString(value));
+        }
+
+        // bytes the caller has checked are all ASCII
+        public RowRenderer appendAscii(byte[] text, int from, int count) {
+            ensure(count);
+            for (int i = 0; i < count; i++) {
+                chars[length++] = (char) text[from + i];
+            }
+            return this;
+        }
+
+        public RowRenderer appendDigits(int value, int width) {
+            ensure(width);
+            for (int i = width - 1; i >= 0; i--) {
+                chars[length + i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+            length += width;
+            return this;
+        }
+
+        // spaces up to the width since start, as %-Ns pads
+        public RowRenderer pad(int start, int width) {
+            int missing = width - (length - start);
+            if (missing > 0) {
+                ensure(missing);
+                Arrays.fill(chars, length, length + missing, ' ');
+                length += missing;
+            }
+            return this;
+        }
+
+        public void flush(PrintStream out) {
+            int needed = (int) Math.ceil(length * (double) encoder.maxBytesPerChar());
+            if (bytes.capacity() < needed) bytes = ByteBuffer.allocate(Math.max(needed, FLUSH_AT * 2));
+            bytes.clear();
+            encoder.reset();
+            encoder.encode(CharBuffer.wrap(chars, 0, length), bytes, true);
+            encoder.flush(bytes);
+            out.write(bytes.array(), 0, bytes.position());
+            length = 0;
+        }
+    }
+
+    private static class ReceiptRenderer {
+        private static final ThreadLocal<ReceiptRenderer> RENDERERS = ThreadLocal.withInitial(ReceiptRenderer::new);
+        private static final String NL = System.lineSeparator();
+        private static final int WRAP_WIDTH = 58;
+        private static final String STARS = "*".repeat(60);
+        private static final String RULE = "-".repeat(60) + NL;
+        private static final String OPENING = "\n" + STARS + NL + "          HEBS EVENT BOOKING RECEIPT" + NL + STARS + NL;
+        private static final String ID_LABEL = label("Event ID");
+        private static final String TITLE_LABEL = label("Reservation");
+        private static final String CATEGORY_LABEL = label("Category");
+        private static final String DATE_LABEL = label("Date");
+        private static final String TIME_LABEL = label("Time");
+        private static final String LOCATION_LABEL = label("Location");
+        private static final String SERVICES_LABEL = RULE + "INCLUDED SERVICES (";
+        private static final String SERVICES_SUFFIX = "/" + MAX_INCLUSIONS + " Selected):\n";
+        private static final String NONE_SELECTED = "  None selected (required for booking)." + NL;
+        private static final String DESCRIPTION_LABEL = RULE + "Description:" + NL;
+        private static final String NO_DESCRIPTION = "  (No description provided)";
+        private static final String CLOSING = STARS + NL;
+        private static final Map<InclusionCatalog, String[][]> LAYOUTS = compileLayouts();
+
+        private final StringBuilder text = new StringBuilder(2048);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer bytes;
+
+        public static ReceiptRenderer forCurrentThread() {
+            return RENDERERS.get();
+        }
+
+        private static String label(String name) {
+            return String.format("%-15s: ", name);
+        }
+
+        private static Map<InclusionCatalog, String[][]> compileLayouts() {
+            // per catalog: the group header lines followed by one line per inclusion, ready to append
+            Map<InclusionCatalog, String[][]> layouts = new HashMap<>();
+            for (String category : CATEGORY_INCLUSIONS.keySet()) {
+                InclusionCatalog catalog = InclusionCatalog.forCategory(category);
+                String[] groupLines = new String[catalog.groupCount()];
+                for (int group = 0; group < groupLines.length; group++) {
+                    groupLines[group] = "  [-- " + catalog.groupName(group) + " --]\n";
+                }
+                String[] itemLines = new String[catalog.size()];
+                for (int ordinal = 0; ordinal < itemLines.length; ordinal++) {
+                    itemLines[ordinal] = "    - " + catalog.item(ordinal) + "\n";
+                }
+                layouts.put(catalog, new String[][] { groupLines, itemLines });
+            }
+            return layouts;
+        }
+
+        public StringBuilder render(int id, String title, String category, String date, String time, String location, long inclusion, String description) {
+            text.setLength(0);
+            append(id, title, category, date, time, location, inclusion, description);
+            return text;
+        }
+
+        public void reset() {
+            text.setLength(0);
+        }
+
+        public void append(int id, String title, String category, String date, String time, String location, long inclusion, String description) {
+            InclusionCatalog catalog = InclusionCatalog.forCategory(category);
+            text.append(OPENING);
+            text.append(ID_LABEL).append(id).append('\n');
+            text.append(TITLE_LABEL).append(title).append('\n');
+            text.append(CATEGORY_LABEL).append(category).append('\n');
+            text.append(RULE);
+            text.append(DATE_LABEL).append(date).append('\n');
+            text.append(TIME_LABEL).append(time).append('\n');
+            text.append(LOCATION_LABEL).append(location).append('\n');
+            text.append(SERVICES_LABEL).append(Long.bitCount(inclusion)).append(SERVICES_SUFFIX);
+
+            String[][] layout = LAYOUTS.get(catalog);
+            if (inclusion == 0) {
+                text.append(NONE_SELECTED);
+            } else if (layout != null) {
+                for (int group = 0; group < catalog.groupCount(); group++) {
+                    long selectedInGroup = inclusion & catalog.groupMask(group);
+                    if (selectedInGroup == 0) continue;
+
+                    text.append(layout[0][group]);
+                    for (long bits = selectedInGroup; bits != 0; bits &= bits - 1) {
+                        text.append(layout[1][Long.numberOfTrailingZeros(bits)]);
+                    }
+                }
+            }
+
+            text.append(DESCRIPTION_LABEL);
+            wrap(description.isEmpty() ? NO_DESCRIPTION : description);
+            text.append(NL);
+            text.append(CLOSING);
+        }
+
+        private void wrap(String source) {
+            // same lines as splitting on single spaces and trimming the result, but appended in place
+            int start = text.length();
+            int end = source.length();
+            while (end > 0 && source.charAt(end - 1) == ' ') end--;
+            text.append("  ");
+            int lineLength = 2;
+            for (int wordStart = 0; wordStart < end; ) {
+                int wordEnd = source.indexOf(' ', wordStart);
+                if (wordEnd < 0) wordEnd = end;
+                int length = wordEnd - wordStart;
+                if (lineLength + length + 1 > WRAP_WIDTH) {
+                    text.append("\n  ");
+                    lineLength = 2;
+                }
+                text.append(source, wordStart, wordEnd).append(' ');
+                lineLength += length + 1;
+                wordStart = wordEnd + 1;
+            }
+
+            int first = start;
+            while (first < text.length() && text.charAt(first) <= ' ') first++;
+            text.delete(start, first);
+            int last = text.length();
+            while (last > start && text.charAt(last - 1) <= ' ') last--;
+            text.setLength(last);
+        }
+
+        public ByteBuffer encode() {
+            bytes = encodeInto(bytes);
+            return bytes;
+        }
+
+        public ByteBuffer encodeInto(ByteBuffer target) {
+            int needed = text.length() * 3;
+            if (target == null || target.capacity() < needed) {
+                target = ByteBuffer.allocateDirect(Math.max(needed, 8192));
+            }
+            target.clear();
+            encoder.reset();
+            encoder.encode(CharBuffer.wrap(text), target, true);
+            encoder.flush(target);
+            target.flip();
+            return target;
+        }
+    }
+
+    private static class ReceiptExport {
+        private static final int RECEIPTS_PER_CHUNK = 256;
+
+        private final Event[] events;
+        private final int[] rows;
+        private final ColumnarArchive archive;
+        private volatile IOException failure;
+
+        ReceiptExport(Event[] events, int[] rows, ColumnarArchive archive) {
+            this.events = events;
+            this.rows = rows;
+            this.archive = archive;
+        }
+
+        private void render(ReceiptRenderer renderer, int position) {
+            Event event = events[position];
+            if (event != null) {
+                renderer.append(event.getId(), event.getTitle(), event.getCategory(), event.getDate(), event.getTime(), event.getLocation(),
+                        event.getInclusionMask(), event.getDescription());
+            } else {
+                int row = rows[position];
+                renderer.append(archive.id(row), archive.title(row), archive.category(row), archive.date(row), archive.time(row), archive.location(row),
+                        archive.inclusionMask(row), archive.description(row));
+            }
+        }
+
+        private int idAt(int position) {
+            return events[position] != null ? events[position].getId() : archive.id(rows[position]);
+        }
+
+        public void writeFiles(Path directory) throws IOException {
+            ForkJoinPool.commonPool().invoke(new FileChunk(directory, 0, events.length));
+            if (failure != null) throw failure;
+        }
+
+        public void writeCombined(Path file) throws IOException {
+            int chunkCount = (events.length + RECEIPTS_PER_CHUNK - 1) / RECEIPTS_PER_CHUNK;
+            // render a wave of chunks in parallel, then append them in schedule order with one gather write
+            ByteBuffer[] slots = new ByteBuffer[Math.max(1, ForkJoinPool.getCommonPoolParallelism() * 2)];
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int firstChunk = 0; firstChunk < chunkCount; firstChunk += slots.length) {
+                    int chunks = Math.min(slots.length, chunkCount - firstChunk);
+                    ForkJoinPool.commonPool().invoke(new WaveChunk(slots, firstChunk, 0, chunks));
+                    while (slots[chunks - 1].hasRemaining()) {
+                        channel.write(slots, 0, chunks);
+                    }
+                }
+                channel.force(false);
+            }
+        }
+
+        private class FileChunk extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final Path directory;
+            private final int from;
+            private final int to;
+
+            FileChunk(Path directory, int from, int to) {
+                this.directory = directory;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > RECEIPTS_PER_CHUNK) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new FileChunk(directory, from, middle), new FileChunk(directory, middle, to));
+                    return;
+                }
+                ReceiptRenderer renderer = ReceiptRenderer.forCurrentThread();
+                for (int position = from; position < to && failure == null; position++) {
+                    renderer.reset();
+                    render(renderer, position);
+                    ByteBuffer receipt = renderer.encode();
+                    Path target = directory.resolve("receipt-" + idAt(position) + ".txt");
+                    try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                        while (receipt.hasRemaining()) {
+                            channel.write(receipt);
+                        }
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+
+        private class WaveChunk extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final ByteBuffer[] slots;
+            private final int firstChunk;
+            private final int fromSlot;
+            private final int toSlot;
+
+            WaveChunk(ByteBuffer[] slots, int firstChunk, int fromSlot, int toSlot) {
+                this.slots = slots;
+                this.firstChunk = firstChunk;
+                this.fromSlot = fromSlot;
+                this.toSlot = toSlot;
+            }
+
+            @Override
+            protected void compute() {
+                if (toSlot - fromSlot > 1) {
+                    int middle = (fromSlot + toSlot) >>> 1;
+                    invokeAll(new WaveChunk(slots, firstChunk, fromSlot, middle), new WaveChunk(slots, firstChunk, middle, toSlot));
+                    return;
+                }
+                int from = (firstChunk + fromSlot) * RECEIPTS_PER_CHUNK;
+                int to = Math.min(events.length, from + RECEIPTS_PER_CHUNK);
+                ReceiptRenderer renderer = ReceiptRenderer.forCurrentThread();
+                renderer.reset();
+                for (int position = from; position < to; position++) {
+                    render(renderer, position);
+                }
+                slots[fromSlot] = renderer.encodeInto(slots[fromSlot]);
+            }
+        }
+    }
+
+    public void serve(int port) throws IOException {
+        ExecutorService sessions = newSessionExecutor();
+        try (ServerSocket server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress())) {
+            out.println("[INFO] Serving planners on " + server.getLocalSocketAddress() + ". Press Ctrl+C to stop.");
+            out.flush();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::close, "event-server-shutdown"));
+            while (true) {
+                Socket client = server.accept();
+                sessions.execute(() -> runSession(client));
+            }
+        } finally {
+            sessions.shutdown();
+        }
+    }
+
+    private void runSession(Socket client) {
+        try (client;
+             PrintStream sessionOut = new PrintStream(new BufferedOutputStream(client.getOutputStream(), 1 << 16), false)) {
+            EventOrganizerConsole session = new EventOrganizerConsole(this, client.getInputStream(), sessionOut);
+            try {
+                session.run();
+            } catch (NoSuchElementException e) {
+                // the planner disconnected mid-prompt
+            } catch (IllegalStateException e) {
+                System.err.println("[ERROR] Session " + client.getRemoteSocketAddress() + " stopped: " + e.getMessage());
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Session " + client.getRemoteSocketAddress() + " failed: " + e.getMessage());
+        }
+    }
+
+    private static ExecutorService newSessionExecutor() {
+        // one virtual thread per session on JDK 21+, a cached platform pool otherwise
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "event-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // drives the batch commands, the same validation and save path the menu uses, with a configurable mix of
+    // planners' work on one or more threads, and reports the throughput and latency it sustained
+    private static class Workload {
+        private static final int ADD = 0;
+        private static final int UPDATE = 1;
+        private static final int DELETE = 2;
+        private static final int LIST = 3;
+        private static final int RECEIPT = 4;
+        private static final String[] OPERATIONS = { "add", "update", "delete", "list", "receipt" };
+        private static final int FIRST_DAY = (int) LocalDate.of(2030, 1, 1).toEpochDay();
+        private static final int LIST_DAYS = 30;
+        // starts fall on the quarter hour from 08:00 to 20:00
+        private static final int FIRST_START = 8 * 60;
+        private static final int START_STEPS = 49;
+        private static final String DESCRIPTION = "Synthetic booking from the workload driver.";
+
+        private long operations = 100_000;
+        private int events = 10_000;
+        private int threads = 1;
+        private int days = 3650;
+        private int collide = 5;
+        private long seed = 42;
+        private final int[] weights = { 30, 25, 10, 15, 20 };
+        private int venues;
+        private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+        private final LongAdder[] rejected = new LongAdder[OPERATIONS.length];
+
+        private Workload() {
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                latencies[i] = new LatencyHistogram();
+                rejected[i] = new LongAdder();
+            }
+        }
+
+        public static Workload parse(String spec) {
+            Workload workload = new Workload();
+            for (String entry : spec.split(",")) {
+                if (entry.trim().isEmpty()) continue;
+                int equals = entry.indexOf('=');
+                String key = equals < 0 ? entry.trim() : entry.substring(0, equals).trim().toLowerCase();
+                long value;
+                try {
+                    value = equals < 0 ? -1 : Long.parseLong(entry.substring(equals + 1).trim().replace("_", ""));
+                } catch (NumberFormatException e) {
+                    value = -1;
+                }
+                if (value < 0) throw new IllegalArgumentException("Expected key=number in the workload but found '" + entry.trim() + "'.");
+                int operation = Arrays.asList(OPERATIONS).indexOf(key);
+                if (operation >= 0) {
+                    workload.weights[operation] = (int) Math.min(value, 1_000_000);
+                    continue;
+                }
+                switch (key) {
+                    case "ops": workload.operations = value; break;
+                    case "events": workload.events = (int) Math.min(value, Integer.MAX_VALUE / 2); break;
+                    case "threads": workload.threads = (int) Math.max(1, Math.min(value, 1024)); break;
+                    case "days": workload.days = (int) Math.max(1, Math.min(value, 365L * 5000)); break;
+                    case "collide": workload.collide = (int) Math.min(value, 100); break;
+                    case "seed": workload.seed = value; break;
+                    default:
+                        throw new IllegalArgumentException("Unknown workload setting '" + key + "'. Use ops, events, threads, days, collide, seed, "
+                                + String.join(", ", OPERATIONS) + ".");
+                }
+            }
+            if (Arrays.stream(workload.weights).sum() == 0) throw new IllegalArgumentException("The workload mix needs at least one operation.");
+            return workload;
+        }
+
+        public void run(EventOrganizerConsole app, PrintStream results, PrintStream progress) throws InterruptedException {
+            int total = Arrays.stream(weights).sum();
+            // enough venues that bookings seldom meet by chance; collisions come from the collide share
+            long bookings = events + operations * weights[ADD] / total;
+            venues = (int) Math.max(20, Math.min(bookings / 20, 1_000_000));
+
+            Worker[] workers = new Worker[threads];
+            for (int t = 0; t < threads; t++) {
+                PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+                workers[t] = new Worker(new EventOrganizerConsole(app, InputStream.nullInputStream(), discard), new Random(seed + t),
+                        events / threads + (t < events % threads ? 1 : 0), operations / threads + (t < operations % threads ? 1 : 0));
+            }
+            progress.println("[INFO] Adding " + events + " events on " + threads + " thread(s)...");
+            long preloadNanos = inParallel(workers, Worker::preload);
+            progress.println("[INFO] Running " + operations + " operations...");
+            long runNanos = inParallel(workers, Worker::measure);
+
+            double seconds = runNanos / 1e9;
+            results.println("\n" + "=".repeat(103));
+            results.println("--- WORKLOAD RESULTS ---");
+            results.printf("%d operation(s) on %d thread(s) in %.2f s: %.0f ops/s. Preloaded %d event(s) in %.2f s. Events in store: %d\n",
+                    operations, threads, seconds, operations / Math.max(seconds, 1e-9), events, preloadNanos / 1e9, app.store.size());
+            results.printf("Mix add/update/delete/list/receipt = %d/%d/%d/%d/%d, %d%% of adds aimed at a booked slot, %d venues over %d days\n",
+                    weights[ADD], weights[UPDATE], weights[DELETE], weights[LIST], weights[RECEIPT], collide, venues, days);
+            results.println("-".repeat(103));
+            results.println(String.format("| %-9s | %9s | %9s | %9s | %9s | %9s | %9s | %9s | %9s |",
+                    "Operation", "Count", "Rejected", "Mean us", "p50 us", "p90 us", "p99 us", "p99.9 us", "Max us"));
+            results.println("-".repeat(103));
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                LatencyHistogram histogram = latencies[i];
+                results.println(String.format("| %-9s | %9d | %9d | %9.1f | %9.1f | %9.1f | %9.1f | %9.1f | %9.1f |", OPERATIONS[i],
+                        histogram.count(), rejected[i].sum(), histogram.meanNanos() / 1000.0, histogram.percentileNanos(50) / 1000.0,
+                        histogram.percentileNanos(90) / 1000.0, histogram.percentileNanos(99) / 1000.0,
+                        histogram.percentileNanos(99.9) / 1000.0, histogram.maxNanos() / 1000.0));
+            }
+            results.println("=".repeat(103));
+            results.flush();
+        }
+
+        private static long inParallel(Worker[] workers, Consumer<Worker> phase) throws InterruptedException {
+            Thread[] running = new Thread[workers.length];
+            long started = System.nanoTime();
+            for (int t = 0; t < workers.length; t++) {
+                Worker worker = workers[t];
+                running[t] = new Thread(() -> phase.accept(worker), "workload-" + t);
+                running[t].start();
+            }
+            for (Thread thread : running) {
+                thread.join();
+            }
+            return System.nanoTime() - started;
+        }
+
+        // one planner: its own session and random stream, and the ids of the events it booked and still holds
+        private class Worker {
+            private final EventOrganizerConsole session;
+            private final Random random;
+            private final int preloads;
+            private final long measured;
+            private int[] owned = new int[16];
+            private int ownedCount;
+
+            Worker(EventOrganizerConsole session, Random random, int preloads, long measured) {
+                this.session = session;
+                this.random = random;
+                this.preloads = preloads;
+                this.measured = measured;
+            }
+
+            void preload() {
+                for (int i = 0; i < preloads; i++) {
+                    String command = addCommand(false);
+                    try {
+                        session.executeCommand(command);
+                        own(session.lastAddedId);
+                    } catch (IllegalArgumentException e) {
+                        // a chance clash; the store simply starts one event smaller
+                    }
+                }
+            }
+
+            void measure() {
+                int total = Arrays.stream(weights).sum();
+                for (long i = 0; i < measured; i++) {
+                    int pick = random.nextInt(total);
+                    int operation = 0;
+                    while (pick >= weights[operation]) pick -= weights[operation++];
+                    if (operation != ADD && operation != LIST && ownedCount == 0) operation = ADD;
+                    int index = ownedCount == 0 ? -1 : random.nextInt(ownedCount);
+                    String command = command(operation, index);
+
+                    long started = System.nanoTime();
+                    boolean done;
+                    try {
+                        session.executeCommand(command);
+                        done = true;
+                    } catch (IllegalArgumentException e) {
+                        done = false;
+                    }
+                    latencies[operation].record(System.nanoTime() - started);
+                    if (!done) {
+                        rejected[operation].increment();
+                    } else if (operation == ADD) {
+                        own(session.lastAddedId);
+                    } else if (operation == DELETE) {
+                        owned[index] = owned[--ownedCount];
+                    }
+                }
+            }
+
+            private String command(int operation, int index) {
+                switch (operation) {
+                    case ADD:
+                        return addCommand(random.nextInt(100) < collide);
+                    case UPDATE:
+                        // half move to another start that day, half to another day
+                        return random.nextBoolean()
+                                ? "update|id=" + owned[index] + "|time=" + formatMinuteOfDay(randomStart())
+                                : "update|id=" + owned[index] + "|date=" + LocalDate.ofEpochDay(FIRST_DAY + random.nextInt(days));
+                    case DELETE:
+                        return "delete|id=" + owned[index];
+                    case LIST: {
+                        int from = FIRST_DAY + random.nextInt(days);
+                        return "list|from=" + LocalDate.ofEpochDay(from) + "|to=" + LocalDate.ofEpochDay(from + LIST_DAYS - 1);
+                    }
+                    default:
+                        return "receipt|id=" + owned[index];
+                }
+            }
+
+            // a booking with inclusions drawn from its category's catalog; a colliding one takes a held slot's venue and start
+            private String addCommand(boolean colliding) {
+                String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+                InclusionCatalog catalog = InclusionCatalog.forCategory(category);
+                StringBuilder inclusions = new StringBuilder();
+                for (int group = 0; group < catalog.groupCount(); group++) {
+                    if (inclusions.length() > 0 && random.nextBoolean()) continue;
+                    int span = catalog.groupEnd(group) - catalog.groupStart(group);
+                    if (inclusions.length() > 0) inclusions.append(';');
+                    inclusions.append(catalog.item(catalog.groupStart(group) + random.nextInt(span)));
+                }
+                Event held = colliding && ownedCount > 0 ? session.store.get(owned[random.nextInt(ownedCount)]) : null;
+                String date = held != null ? held.getDate() : LocalDate.ofEpochDay(FIRST_DAY + random.nextInt(days)).toString();
+                String time = held != null ? held.getTime() : formatMinuteOfDay(randomStart());
+                String location = held != null ? held.getLocation() : "Venue " + random.nextInt(venues);
+                return "add|title=Workload booking " + random.nextInt(1_000_000) + "|date=" + date + "|time=" + time + "|location=" + location
+                        + "|category=" + category + "|inclusions=" + inclusions + "|description=" + DESCRIPTION;
+            }
+
+            private int randomStart() {
+                return FIRST_START + 15 * random.nextInt(START_STEPS);
+            }
+
+            private void own(int id) {
+                if (ownedCount == owned.length) owned = Arrays.copyOf(owned, owned.length * 2);
+                owned[ownedCount++] = id;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        Path dataDir = Paths.get("data");
+        boolean dataChosen = false;
+        Path archivePath = null;
+        String batchSource = null;
+        Path outputFile = null;
+        Path importFile = null;
+        Path reportFile = null;
+        int serverPort = -1;
+        Workload workload = null;
+        Path metricsDump = null;
+        long metricsInterval = 60;
+        Path feedFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--data") && i + 1 < args.length) {
+                dataDir = Paths.get(args[++i]);
+                dataChosen = true;
+            } else if (args[i].equals("--in-memory")) {
+                dataDir = null;
+                dataChosen = true;
+            } else if (args[i].equals("--archive") && i + 1 < args.length) {
+                archivePath = Paths.get(args[++i]);
+            } else if (args[i].equals("--batch") && i + 1 < args.length) {
+                batchSource = args[++i];
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                outputFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--import") && i + 1 < args.length) {
+                importFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--report") && i + 1 < args.length) {
+                reportFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--server") && i + 1 < args.length) {
+                serverPort = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--metrics-dump") && i + 1 < args.length) {
+                metricsDump = Paths.get(args[++i]);
+            } else if (args[i].equals("--metrics-interval") && i + 1 < args.length) {
+                metricsInterval = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--feed") && i + 1 < args.length) {
+                feedFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--schedule") && i + 1 < args.length) {
+                try {
+                    VenueSchedule.configure(args[++i]);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("[ERROR] " + e.getMessage());
+                    System.exit(2);
+                }
+            } else if (args[i].equals("--compress-descriptions")) {
+                Event.compressDescriptions = true;
+            } else if (args[i].equals("--workload")) {
+                try {
+                    workload = Workload.parse(i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "");
+                } catch (IllegalArgumentException e) {
+                    System.err.println("[ERROR] " + e.getMessage());
+                    System.exit(2);
+                }
+            }
+        }
+
+        if (workload != null) {
+            // a load run never writes to the default event file; it uses one only when --data names it
+            EventOrganizerConsole app = new EventOrganizerConsole(dataChosen ? dataDir : null, archivePath, InputStream.nullInputStream(),
+                    new PrintStream(OutputStream.nullOutputStream()));
+            if (metricsDump != null) app.metrics.dumpEvery(metricsDump, metricsInterval);
+            if (feedFile != null) app.exportFeed(feedFile);
+            try (PrintStream results = outputFile == null ? System.out : new PrintStream(Files.newOutputStream(outputFile), false, StandardCharsets.UTF_8)) {
+                workload.run(app, results, System.err);
+            } catch (IOException | InterruptedException e) {
+                System.err.println("[ERROR] Workload run failed: " + e.getMessage());
+                app.close();
+                System.exit(2);
+            }
+            app.close();
+            return;
+        }
+
+        if (serverPort >= 0) {
+            EventOrganizerConsole app = new EventOrganizerConsole(dataDir, archivePath);
+            if (metricsDump != null) app.metrics.dumpEvery(metricsDump, metricsInterval);
+            if (feedFile != null) app.exportFeed(feedFile);
+            try {
+                app.serve(serverPort);
+            } catch (IOException e) {
+                System.err.println("[ERROR] Server stopped: " + e.getMessage());
+                app.close();
+                System.exit(2);
+            }
+            return;
+        }
+
+        if (importFile != null) {
+            EventOrganizerConsole app = new EventOrganizerConsole(dataDir, archivePath);
+            if (metricsDump != null) app.metrics.dumpEvery(metricsDump, metricsInterval);
+            if (feedFile != null) app.exportFeed(feedFile);
+            try {
+                app.importBookings(importFile, reportFile);
+            } catch (IOException | IllegalArgumentException e) {
+                app.out.println("[ERROR] Import of " + importFile + " failed: " + e.getMessage());
+            }
+            app.close();
+            if (batchSource == null) return;
+        }
+
+        if (batchSource != null) {
+            try (PrintStream out = new PrintStream(new BufferedOutputStream(outputFile == null
+                        ? new FileOutputStream(FileDescriptor.out) : Files.newOutputStream(outputFile), 1 << 20), false);
+                 BufferedReader commands = batchSource.equals("-")
+                        ? new BufferedReader(new InputStreamReader(System.in), 1 << 16)
+                        : Files.newBufferedReader(Paths.get(batchSource))) {
+                EventOrganizerConsole app = new EventOrganizerConsole(dataDir, archivePath, InputStream.nullInputStream(), out);
+                if (metricsDump != null) app.metrics.dumpEvery(metricsDump, metricsInterval);
+                if (feedFile != null) app.exportFeed(feedFile);
+                int failed = app.runBatch(commands);
+                app.close();
+                if (failed > 0) System.exit(1);
+            } catch (IOException e) {
+                System.err.println("[ERROR] Batch run failed: " + e.getMessage());
+                System.exit(2);
+            }
+            return;
+        }
+
+        EventOrganizerConsole app = new EventOrganizerConsole(dataDir, archivePath);
+        if (metricsDump != null) app.metrics.dumpEvery(metricsDump, metricsInterval);
+        if (feedFile != null) app.exportFeed(feedFile);
+        app.run();
+    }
+}
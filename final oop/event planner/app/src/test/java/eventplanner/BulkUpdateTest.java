@@ -0,0 +1,69 @@
+package eventplanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BulkUpdateTest {
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private EventOrganizerConsole console;
+
+    @BeforeEach
+    void open() throws IOException {
+        console = new EventOrganizerConsole(null, null, InputStream.nullInputStream(), new PrintStream(output, true, StandardCharsets.UTF_8), false);
+        assertEquals(0, batch(
+                "add|title=A|date=2030-01-10|time=10:00|location=Hall Q|category=Birthday|inclusions=DJ|description=x",
+                "add|title=B|date=2030-01-11|time=10:00|location=Hall Q|category=Birthday|inclusions=DJ|description=x",
+                "add|title=C|date=2030-01-11|time=10:00|location=Hall R|category=Birthday|inclusions=DJ|description=x"));
+        output.reset();
+    }
+
+    @AfterEach
+    void close() {
+        console.close();
+    }
+
+    private int batch(String... lines) throws IOException {
+        return console.runBatch(new BufferedReader(new StringReader(String.join("\n", lines))));
+    }
+
+    @Test
+    void aClashWithAnotherEventLeavesEveryMatchAsItWas() throws IOException {
+        long version = console.store.snapshot().version();
+        // A could move, but B would land on C's slot
+        assertEquals(1, batch("bulkupdate|location=Hall Q|set-location=Hall R"));
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("1 of 2 event(s) would clash, so none were updated."));
+        assertEquals("Hall Q", console.store.get(1).getLocation());
+        assertEquals("Hall Q", console.store.get(2).getLocation());
+        assertEquals(version, console.store.snapshot().version());
+        assertNull(console.store.history(1));
+    }
+
+    @Test
+    void aClashWithinTheBatchLeavesEveryMatchAsItWas() throws IOException {
+        // both would move to the same slot
+        assertEquals(1, batch("bulkupdate|location=Hall Q|set-date=2030-01-12"));
+        assertEquals("2030-01-10", console.store.get(1).getDate());
+        assertEquals("2030-01-11", console.store.get(2).getDate());
+        assertNull(console.store.history(2));
+    }
+
+    @Test
+    void aBatchWithoutClashesChangesEveryMatch() throws IOException {
+        assertEquals(0, batch("bulkupdate|location=Hall Q|set-time=12:00"));
+        assertEquals("12:00", console.store.get(1).getTime());
+        assertEquals("12:00", console.store.get(2).getTime());
+        assertEquals("10:00", console.store.get(3).getTime());
+    }
+}
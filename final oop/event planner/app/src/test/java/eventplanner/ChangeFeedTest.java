@@ -0,0 +1,116 @@
+package eventplanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ChangeFeedTest {
+    private static EventOrganizerConsole.Event event(int id, String title) {
+        return new EventOrganizerConsole.Event(id, title, null, null, "Hall", "Birthday", Collections.emptyList(), "");
+    }
+
+    @Test
+    void concurrentWritersAreDeliveredInSequenceOrder() throws Exception {
+        EventOrganizerConsole.EventStore store = new EventOrganizerConsole.EventStore();
+        EventOrganizerConsole.ChangeFeed feed = new EventOrganizerConsole.ChangeFeed();
+        store.addListener(feed);
+        List<EventOrganizerConsole.ChangeFeed.Change> delivered = Collections.synchronizedList(new ArrayList<>());
+        feed.subscribe("check", 100, delivered::addAll);
+
+        Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            int base = w * 100_000;
+            writers[w] = new Thread(() -> {
+                for (int i = 1; i <= 5000; i++) {
+                    EventOrganizerConsole.Event added = event(base + i, "Added");
+                    store.add(added);
+                    if (i % 2 == 0) store.replace(added, event(base + i, "Renamed"));
+                    if (i % 5 == 0) store.remove(store.get(base + i));
+                }
+            });
+            writers[w].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        feed.close();
+
+        assertEquals(feed.published(), delivered.size());
+        Map<Integer, List<Byte>> perEvent = new HashMap<>();
+        for (int i = 0; i < delivered.size(); i++) {
+            EventOrganizerConsole.ChangeFeed.Change change = delivered.get(i);
+            assertEquals(i + 1, change.sequence());
+            perEvent.computeIfAbsent(change.id(), id -> new ArrayList<>()).add(change.type());
+        }
+        // each event's changes arrive in the order they were made
+        for (List<Byte> types : perEvent.values()) {
+            assertEquals(EventOrganizerConsole.ChangeFeed.ADD, types.get(0));
+            for (int i = 1; i < types.size(); i++) {
+                assertTrue(types.get(i - 1) != EventOrganizerConsole.ChangeFeed.DELETE);
+            }
+        }
+    }
+
+    @Test
+    void aSlowSubscriberHoldsBackOnlyTheWriterAFullRingAhead() throws Exception {
+        EventOrganizerConsole.EventStore store = new EventOrganizerConsole.EventStore();
+        EventOrganizerConsole.ChangeFeed feed = new EventOrganizerConsole.ChangeFeed();
+        store.addListener(feed);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        feed.subscribe("slow", 256, batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            for (EventOrganizerConsole.ChangeFeed.Change change : batch) {
+                sequences.add(change.sequence());
+            }
+        });
+
+        int changes = EventOrganizerConsole.ChangeFeed.CAPACITY * 2;
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= changes; i++) {
+                store.add(event(i, "Queued"));
+            }
+        });
+        writer.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (feed.published() <= EventOrganizerConsole.ChangeFeed.CAPACITY && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(200);
+        // the writer waits with the ring full, a bounded distance ahead of the subscriber
+        assertTrue(writer.isAlive());
+        assertTrue(feed.published() < changes);
+
+        // and waits outside the store's lock, so another writer's change is in the store at once, even though
+        // that writer then queues behind the same subscriber to hand its change to the feed
+        Thread other = new Thread(() -> store.add(event(changes + 1, "Other")));
+        other.start();
+        while (store.get(changes + 1) == null && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertNotNull(store.get(changes + 1));
+
+        release.countDown();
+        writer.join();
+        other.join();
+        feed.close();
+        assertEquals(changes + 1, sequences.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            assertEquals(i + 1, sequences.get(i));
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package eventplanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EventJournalTest {
+    @TempDir
+    Path dir;
+
+    private static EventOrganizerConsole open(Path events, Path archive) {
+        return new EventOrganizerConsole(events, archive, InputStream.nullInputStream(),
+                new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+    }
+
+    private static int batch(EventOrganizerConsole console, String... lines) throws IOException {
+        return console.runBatch(new BufferedReader(new StringReader(String.join("\n", lines))));
+    }
+
+    @Test
+    void recoveryLeavesNoHistory() throws IOException {
+        EventOrganizerConsole first = open(dir, null);
+        assertEquals(0, batch(first, "update|id=2|location=Pine Hill Annex"));
+        first.close();
+
+        EventOrganizerConsole second = open(dir, null);
+        assertNull(second.store.history(2));
+        assertEquals("Pine Hill Annex", second.store.get(2).getLocation());
+        // history starts with this run, so undo reverts this run's update and nothing older
+        assertEquals(0, batch(second, "update|id=2|location=Seaside Hall", "undo|id=2"));
+        assertEquals("Pine Hill Annex", second.store.get(2).getLocation());
+        second.close();
+    }
+
+    @Test
+    void archiveRestoreLeavesNoHistory() throws IOException {
+        Path events = dir.resolve("events");
+        Path archive = dir.resolve("archive");
+        EventOrganizerConsole first = open(events, archive);
+        first.close();
+        // the journal as it stood before the run, as if the run crashed after writing the archive
+        Path before = dir.resolve("before");
+        copy(events, before);
+        first = open(events, archive);
+        assertEquals(0, batch(first, "archive|before=2025-01-01"));
+        first.close();
+        delete(events);
+        copy(before, events);
+
+        EventOrganizerConsole second = open(events, archive);
+        assertNull(second.store.get(1));
+        assertNull(second.store.history(1));
+        second.close();
+    }
+
+    @Test
+    void tornBulkChangeIsDroppedWhole() throws IOException {
+        EventOrganizerConsole first = open(dir, null);
+        assertEquals(0, batch(first,
+                "add|title=A|date=2030-01-10|time=10:00|location=Sky Hall|category=Birthday|inclusions=DJ|description=x",
+                "add|title=B|date=2030-01-11|time=10:00|location=Sky Hall|category=Birthday|inclusions=DJ|description=x",
+                "add|title=C|date=2030-01-12|time=10:00|location=Sky Hall|category=Birthday|inclusions=DJ|description=x",
+                "bulkupdate|location=Sky Hall|set-location=Hall B"));
+        first.close();
+        Path journal = lastJournal();
+        long length = Files.size(journal);
+
+        EventOrganizerConsole whole = open(dir, null);
+        assertEquals(3, locatedAt(whole, "Hall B"));
+        whole.close();
+
+        // the crash hit while the bulk change was being written
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(length - 1);
+        }
+        EventOrganizerConsole torn = open(dir, null);
+        assertEquals(0, locatedAt(torn, "Hall B"));
+        assertEquals(3, locatedAt(torn, "Sky Hall"));
+        torn.close();
+    }
+
+    @Test
+    void tornTailIsDropped() throws IOException {
+        EventOrganizerConsole first = open(dir, null);
+        assertEquals(0, batch(first,
+                "add|title=Kept|date=2030-01-10|time=10:00|location=Sky Hall|category=Birthday|inclusions=DJ|description=x",
+                "add|title=Torn|date=2030-01-11|time=10:00|location=Sky Hall|category=Birthday|inclusions=DJ|description=x"));
+        first.close();
+        Path journal = lastJournal();
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(journal) - 3);
+        }
+
+        EventOrganizerConsole second = open(dir, null);
+        assertEquals(1, titled(second, "Kept"));
+        assertEquals(0, titled(second, "Torn"));
+        second.close();
+    }
+
+    @Test
+    void oversizedLengthEndsReplayOfItsJournal() throws IOException {
+        EventOrganizerConsole first = open(dir, null);
+        assertEquals(0, batch(first, "add|title=Kept|date=2030-01-10|time=10:00|location=Sky Hall|category=Birthday|inclusions=DJ|description=x"));
+        first.close();
+        // a length no record could have, followed by a few stray bytes
+        try (FileChannel channel = FileChannel.open(lastJournal(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(12).putInt(Integer.MAX_VALUE).putInt(0).putInt(42).flip());
+        }
+
+        EventOrganizerConsole second = open(dir, null);
+        assertEquals(1, titled(second, "Kept"));
+        assertEquals(0, batch(second, "add|title=Later|date=2030-01-11|time=10:00|location=Sky Hall|category=Birthday|inclusions=DJ|description=x"));
+        second.close();
+
+        // the next run's journal is a file of its own, so the garbage hides nothing written after it
+        EventOrganizerConsole third = open(dir, null);
+        assertEquals(1, titled(third, "Kept"));
+        assertEquals(1, titled(third, "Later"));
+        third.close();
+    }
+
+    @Test
+    void snapshotAndTailAreReplayedTogether() throws IOException {
+        EventOrganizerConsole first = open(dir, null);
+        int seeded = first.store.size();
+        for (int i = 0; i < EventOrganizerConsole.EventJournal.SNAPSHOT_EVERY; i++) {
+            first.store.add(new EventOrganizerConsole.Event(first.idCounter.getAndIncrement(), "Bulk " + i, "2031-01-01",
+                    EventOrganizerConsole.formatMinuteOfDay(i % 1440), "Venue " + i, "Birthday", Collections.emptyList(), ""));
+        }
+        // written after the snapshot was taken, so only the journal tail holds them
+        assertEquals(0, batch(first,
+                "update|id=2|location=Pine Hill Annex",
+                "add|title=Tail|date=2030-01-10|time=10:00|location=Sky Hall|category=Birthday|inclusions=DJ|description=x"));
+        first.close();
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.anyMatch(file -> file.getFileName().toString().startsWith("snapshot-")));
+        }
+
+        EventOrganizerConsole second = open(dir, null);
+        assertEquals(seeded + EventOrganizerConsole.EventJournal.SNAPSHOT_EVERY + 1, second.store.size());
+        assertEquals("Pine Hill Annex", second.store.get(2).getLocation());
+        assertEquals(1, titled(second, "Tail"));
+        second.close();
+    }
+
+    private static int titled(EventOrganizerConsole console, String title) {
+        int count = 0;
+        for (EventOrganizerConsole.Event event : console.store.snapshot()) {
+            if (event.getTitle().equals(title)) count++;
+        }
+        return count;
+    }
+
+    private static int locatedAt(EventOrganizerConsole console, String location) {
+        int count = 0;
+        for (EventOrganizerConsole.Event event : console.store.snapshot()) {
+            if (event.getLocation().equals(location)) count++;
+        }
+        return count;
+    }
+
+    private Path lastJournal() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-")).max(Path::compareTo).orElseThrow();
+        }
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : (Iterable<Path>) files::iterator) Files.copy(file, to.resolve(file.getFileName()));
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+        }
+    }
+}
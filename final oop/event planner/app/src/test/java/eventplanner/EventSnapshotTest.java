@@ -0,0 +1,109 @@
+package eventplanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class EventSnapshotTest {
+    private static final Comparator<EventOrganizerConsole.Event> SCHEDULE_ORDER = Comparator
+            .comparingInt(EventOrganizerConsole.Event::getEpochDay)
+            .thenComparingInt(EventOrganizerConsole.Event::getMinuteOfDay)
+            .thenComparingInt(EventOrganizerConsole.Event::getId);
+    private static final int FIRST_DAY = (int) LocalDate.of(2030, 1, 1).toEpochDay();
+
+    private final Random random = new Random(5);
+    private int nextId = 1;
+
+    private EventOrganizerConsole.Event event(int id) {
+        return new EventOrganizerConsole.Event(id, "Event " + id, LocalDate.ofEpochDay(FIRST_DAY + random.nextInt(900)).toString(),
+                EventOrganizerConsole.formatMinuteOfDay(random.nextInt(1440)), "Hall", "Birthday", Collections.emptyList(), "");
+    }
+
+    @Test
+    void matchesASortedMapThroughInsertsDeletesAndRanges() {
+        EventOrganizerConsole.EventSnapshot snapshot = new EventOrganizerConsole.EventStore().snapshot();
+        TreeMap<EventOrganizerConsole.Event, EventOrganizerConsole.Event> oracle = new TreeMap<>(SCHEDULE_ORDER);
+        List<EventOrganizerConsole.Event> live = new ArrayList<>();
+        for (int step = 0; step < 10_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 5 || live.isEmpty()) {
+                EventOrganizerConsole.Event added = event(nextId++);
+                snapshot = snapshot.with(added);
+                oracle.put(added, added);
+                live.add(added);
+            } else if (action < 8) {
+                EventOrganizerConsole.Event removed = live.remove(random.nextInt(live.size()));
+                snapshot = snapshot.without(removed);
+                oracle.remove(removed);
+            } else if (action < 9) {
+                int at = random.nextInt(live.size());
+                EventOrganizerConsole.Event current = live.get(at);
+                EventOrganizerConsole.Event updated = event(current.getId());
+                snapshot = snapshot.replacing(current, updated);
+                oracle.remove(current);
+                oracle.put(updated, updated);
+                live.set(at, updated);
+            } else {
+                // a large batch goes through the rebuilding path, a small one through path copies
+                int changes = random.nextBoolean() ? 1000 : 5;
+                List<EventOrganizerConsole.Event> removals = new ArrayList<>();
+                List<EventOrganizerConsole.Event> additions = new ArrayList<>();
+                for (int i = 0; i < changes && !live.isEmpty(); i++) {
+                    EventOrganizerConsole.Event removed = live.remove(random.nextInt(live.size()));
+                    removals.add(removed);
+                    oracle.remove(removed);
+                }
+                for (int i = 0; i < changes; i++) {
+                    EventOrganizerConsole.Event added = event(nextId++);
+                    additions.add(added);
+                    oracle.put(added, added);
+                    live.add(added);
+                }
+                snapshot = snapshot.changing(removals, additions);
+            }
+            if (step % 250 == 0) check(snapshot, oracle);
+        }
+        check(snapshot, oracle);
+    }
+
+    private void check(EventOrganizerConsole.EventSnapshot snapshot, TreeMap<EventOrganizerConsole.Event, EventOrganizerConsole.Event> oracle) {
+        assertEquals(oracle.size(), snapshot.size());
+        assertEquals(new ArrayList<>(oracle.keySet()), list(snapshot));
+
+        int from = FIRST_DAY - 10 + random.nextInt(920);
+        int to = from + random.nextInt(120);
+        List<EventOrganizerConsole.Event> expected = new ArrayList<>();
+        for (EventOrganizerConsole.Event event : oracle.keySet()) {
+            if (event.getEpochDay() >= from && event.getEpochDay() <= to) expected.add(event);
+        }
+        assertEquals(expected, list(snapshot.between(from, to)));
+
+        // the partitions tile the range and hold exactly its events, in order
+        List<EventOrganizerConsole.Event> partitioned = new ArrayList<>();
+        int start = from;
+        for (EventOrganizerConsole.EventSnapshot.Partition partition : snapshot.partitions(from, to)) {
+            assertEquals(start, partition.firstDay());
+            assertTrue(partition.lastDay() >= partition.firstDay());
+            start = partition.lastDay() + 1;
+            partitioned.addAll(list(partition.events()));
+        }
+        if (!expected.isEmpty()) assertEquals(to + 1, start);
+        assertEquals(expected, partitioned);
+    }
+
+    private static List<EventOrganizerConsole.Event> list(Iterable<EventOrganizerConsole.Event> events) {
+        List<EventOrganizerConsole.Event> list = new ArrayList<>();
+        for (EventOrganizerConsole.Event event : events) {
+            list.add(event);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,47 @@
+package eventplanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IntIntMapTest {
+    @Test
+    void removalsKeepEveryProbeChainReachable() {
+        // few keys in a small table, so chains are long, wrap past the end and are cut again and again
+        EventOrganizerConsole.IntIntMap map = new EventOrganizerConsole.IntIntMap();
+        Map<Integer, Integer> oracle = new HashMap<>();
+        Random random = new Random(17);
+        for (int step = 0; step < 200_000; step++) {
+            int key = random.nextInt(40) - 20;
+            if (random.nextInt(3) == 0) {
+                Integer expected = oracle.remove(key);
+                assertEquals(expected == null ? -1 : expected, map.remove(key, -1));
+            } else {
+                map.put(key, step);
+                oracle.put(key, step);
+            }
+            assertEquals(oracle.size(), map.size());
+            for (int probe = -20; probe < 20; probe++) {
+                assertEquals(oracle.getOrDefault(probe, -1), map.get(probe, -1), "key " + probe + " at step " + step);
+            }
+        }
+    }
+
+    @Test
+    void removingEveryKeyEmptiesTheMap() {
+        EventOrganizerConsole.IntIntMap map = new EventOrganizerConsole.IntIntMap(4);
+        for (int key = 0; key < 1000; key++) {
+            map.put(key * 64, key);
+        }
+        for (int key = 0; key < 1000; key++) {
+            assertEquals(key, map.remove(key * 64, -1));
+            assertFalse(map.containsKey(key * 64));
+            if (key + 1 < 1000) assertEquals(key + 1, map.get((key + 1) * 64, -1));
+        }
+        assertEquals(0, map.size());
+    }
+}
@@ -0,0 +1,54 @@
+package eventplanner;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SearchIndexTest {
+    private final EventOrganizerConsole.SearchIndex index = new EventOrganizerConsole.SearchIndex();
+
+    private void add(int id, String title, String location, String description) {
+        index.added(new EventOrganizerConsole.Event(id, title, "2030-01-10", "10:00", location, "Birthday", Collections.emptyList(), description));
+    }
+
+    @BeforeEach
+    void fill() {
+        add(1, "Grand Gala", "Sky Hall", "Dinner and dancing");
+        add(2, "Party", "Grand Ballroom", "Dinner");
+        add(3, "Debut", "Garden", "In the grand tradition");
+        add(4, "Grandstand Picnic", "Field", "Lunch");
+        add(5, "Reunion", "Pine Hill Chapel", "Nothing to see");
+    }
+
+    @Test
+    void titleOutranksLocationOutranksDescription() {
+        // every match of "gran" is a prefix; the Gala and the Grandstand tie on their titles and keep id order
+        assertArrayEquals(new int[] { 1, 4, 2, 3 }, index.search("gran", 10));
+    }
+
+    @Test
+    void everyWordMustMatchTheStartOfAWord() {
+        assertArrayEquals(new int[] { 2 }, index.search("gra ball", 10));
+        assertArrayEquals(new int[] { 1, 2 }, index.search("gra dinner", 10));
+        assertArrayEquals(new int[0], index.search("rand", 10));
+    }
+
+    @Test
+    void wholeWordsOutrankPrefixes() {
+        // the Ballroom's whole word in its location now beats the Grandstand's prefix in its title
+        assertArrayEquals(new int[] { 1, 2, 4, 3 }, index.search("grand", 10));
+        assertArrayEquals(new int[] { 1, 2 }, index.search("grand", 2));
+    }
+
+    @Test
+    void removedAndReplacedEventsLeaveTheIndex() {
+        EventOrganizerConsole.Event gala = new EventOrganizerConsole.Event(1, "Grand Gala", "2030-01-10", "10:00", "Sky Hall", "Birthday", Collections.emptyList(), "Dinner and dancing");
+        EventOrganizerConsole.Event renamed = new EventOrganizerConsole.Event(1, "Winter Gala", "2030-01-10", "10:00", "Sky Hall", "Birthday", Collections.emptyList(), "Dinner and dancing");
+        index.replaced(gala, renamed);
+        assertArrayEquals(new int[] { 4, 2, 3 }, index.search("gran", 10));
+        index.removed(renamed);
+        assertArrayEquals(new int[0], index.search("winter", 10));
+    }
+}
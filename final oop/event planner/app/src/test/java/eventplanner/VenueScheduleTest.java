@@ -0,0 +1,84 @@
+package eventplanner;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class VenueScheduleTest {
+    // a Birthday holds its venue for 240 minutes plus 60 of turnaround, a Burial for 180 plus 120
+    private final EventOrganizerConsole.VenueSchedule schedule = new EventOrganizerConsole.VenueSchedule();
+
+    private static EventOrganizerConsole.Event booking(int id, String date, String time, String location, String category) {
+        return new EventOrganizerConsole.Event(id, "Booking " + id, date, time, location, category, Collections.emptyList(), "");
+    }
+
+    private static int day(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+
+    @Test
+    void aBookingMayStartExactlyWhenTheTurnaroundEnds() {
+        EventOrganizerConsole.Event party = booking(1, "2030-01-10", "10:00", "Hall A", "Birthday");
+        schedule.add(party);
+        assertNull(schedule.conflict(booking(2, "2030-01-10", "15:00", "Hall A", "Birthday")));
+        assertSame(party, schedule.conflict(booking(2, "2030-01-10", "14:59", "Hall A", "Birthday")));
+    }
+
+    @Test
+    void aBookingMustEndItsTurnaroundBeforeTheNextStarts() {
+        EventOrganizerConsole.Event party = booking(1, "2030-01-10", "10:00", "Hall A", "Birthday");
+        schedule.add(party);
+        assertNull(schedule.conflict(booking(2, "2030-01-10", "05:00", "Hall A", "Birthday")));
+        assertSame(party, schedule.conflict(booking(2, "2030-01-10", "05:01", "Hall A", "Birthday")));
+    }
+
+    @Test
+    void aLateBookingHoldsTheVenueIntoTheNextDay() {
+        EventOrganizerConsole.Event service = booking(1, "2030-01-10", "22:00", "Hall A", "Burial");
+        schedule.add(service);
+        assertSame(service, schedule.conflict(booking(2, "2030-01-11", "02:59", "Hall A", "Birthday")));
+        assertNull(schedule.conflict(booking(2, "2030-01-11", "03:00", "Hall A", "Birthday")));
+        assertArrayEquals(new int[] { day("2030-01-09"), day("2030-01-12") }, schedule.freeDays("Hall A", day("2030-01-09"), day("2030-01-12"), 10));
+    }
+
+    @Test
+    void venuesMatchIgnoringCaseAndSurroundingSpaces() {
+        EventOrganizerConsole.Event party = booking(1, "2030-01-10", "10:00", "Hall A", "Birthday");
+        schedule.add(party);
+        assertSame(party, schedule.conflict(booking(2, "2030-01-10", "12:00", "  hall a ", "Birthday")));
+        assertNull(schedule.conflict(booking(2, "2030-01-10", "12:00", "Hall B", "Birthday")));
+    }
+
+    @Test
+    void aBookingNeverConflictsWithItself() {
+        EventOrganizerConsole.Event party = booking(1, "2030-01-10", "10:00", "Hall A", "Birthday");
+        schedule.add(party);
+        assertNull(schedule.conflict(booking(1, "2030-01-10", "11:00", "Hall A", "Birthday")));
+    }
+
+    @Test
+    void nextFreeStartSkipsBackToBackBookings() {
+        schedule.add(booking(1, "2030-01-10", "10:00", "Hall A", "Birthday"));
+        schedule.add(booking(2, "2030-01-10", "15:00", "Hall A", "Burial"));
+        EventOrganizerConsole.Event candidate = booking(3, "2030-01-10", "12:00", "Hall A", "Birthday");
+        assertEquals(day("2030-01-10") * 1440L + 20 * 60, schedule.nextFreeStart(candidate));
+    }
+
+    @Test
+    void removingABookingFreesOnlyTheDaysNoOtherBookingHolds() {
+        EventOrganizerConsole.Event late = booking(1, "2030-01-10", "22:00", "Hall A", "Burial");
+        EventOrganizerConsole.Event morning = booking(2, "2030-01-11", "09:00", "Hall A", "Birthday");
+        schedule.add(late);
+        schedule.add(morning);
+        assertEquals(0, schedule.countFreeDays("Hall A", day("2030-01-10"), day("2030-01-11")));
+        schedule.remove(morning);
+        assertEquals(0, schedule.countFreeDays("Hall A", day("2030-01-10"), day("2030-01-11")));
+        schedule.remove(late);
+        assertEquals(2, schedule.countFreeDays("Hall A", day("2030-01-10"), day("2030-01-11")));
+    }
+}
@@ -0,0 +1,152 @@
+package eventplanner;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// the console's hot paths against a store holding only synthetic events. With every index attached a store
+// takes about 0.6 GB per million events, so the 10 million event run needs the 8 GB heap its fork asks for
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class ConsoleBenchmark {
+    private static final int KEY_COUNT = 1 << 12;
+    private static final int FIRST_DAY = (int) LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final int LAST_DAY = (int) LocalDate.of(9999, 12, 31).toEpochDay();
+    private static final String[] LOCATIONS = { "Grand Ballroom", "Pine Hill Chapel", "Garden Pavilion", "Seaside Hall", "City Club" };
+    private static final String DESCRIPTION = "Synthetic booking used to measure the console. Long enough that the receipt wraps it over a few lines.";
+    // heap held per synthetic event with every index attached, measured after a full GC and rounded up
+    private static final long BYTES_PER_EVENT = 700;
+
+    @Param({ "10000", "1000000", "10000000" })
+    public int events;
+
+    private EventOrganizerConsole console;
+    private EventOrganizerConsole toggling;
+    private int days;
+    private int[] dayKeys;
+    private int[] idKeys;
+    private EventOrganizerConsole.Event[] slotKeys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        long needed = events * BYTES_PER_EVENT;
+        if (needed > Runtime.getRuntime().maxMemory()) {
+            throw new IllegalStateException(events + " events need about " + (needed >> 20) + " MB of heap but "
+                    + (Runtime.getRuntime().maxMemory() >> 20) + " MB is available. Rerun with a larger -Xmx.");
+        }
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        console = new EventOrganizerConsole(null, null, InputStream.nullInputStream(), discard, false);
+        String[] dates = new String[Math.min(events, LAST_DAY - FIRST_DAY + 1)];
+        for (int i = 0; i < events; i++) {
+            int day = i % dates.length;
+            if (dates[day] == null) dates[day] = LocalDate.ofEpochDay(FIRST_DAY + day).toString();
+            String category = EventOrganizerConsole.CATEGORIES[i % EventOrganizerConsole.CATEGORIES.length];
+            EventOrganizerConsole.Event event = new EventOrganizerConsole.Event(console.idCounter.getAndIncrement(), "Booking " + i, dates[day],
+                    EventOrganizerConsole.formatMinuteOfDay(480 + i % 720), LOCATIONS[i % LOCATIONS.length], category, Collections.emptyList(), DESCRIPTION);
+            EventOrganizerConsole.InclusionCatalog catalog = EventOrganizerConsole.InclusionCatalog.forCategory(category);
+            event.setInclusionMask(catalog.size() == 0 ? 0 : (1L << (i % catalog.size())) | 1L);
+            console.store.add(event);
+        }
+        toggling = new EventOrganizerConsole(console, new RepeatingInput("1 5 10\nD\n"), discard);
+
+        int lastId = console.idCounter.get() - 1;
+        days = dates.length;
+        Random random = new Random(42);
+        dayKeys = new int[KEY_COUNT];
+        idKeys = new int[KEY_COUNT];
+        slotKeys = new EventOrganizerConsole.Event[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            // half the probed days are booked, half fall outside the synthetic range
+            dayKeys[i] = FIRST_DAY + random.nextInt(days * 2);
+            idKeys[i] = 1 + random.nextInt(lastId);
+            slotKeys[i] = new EventOrganizerConsole.Event(0, "Probe", LocalDate.ofEpochDay(dayKeys[i]).toString(),
+                    EventOrganizerConsole.formatMinuteOfDay(480 + random.nextInt(720)), LOCATIONS[random.nextInt(LOCATIONS.length)],
+                    EventOrganizerConsole.CATEGORIES[i % EventOrganizerConsole.CATEGORIES.length], Collections.emptyList(), "");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        console.close();
+    }
+
+    private int key() {
+        return next++ & (KEY_COUNT - 1);
+    }
+
+    @Benchmark
+    public EventOrganizerConsole.Event findConflict() {
+        return console.findConflict(slotKeys[key()]);
+    }
+
+    @Benchmark
+    public EventOrganizerConsole.Event findEventById() {
+        return console.findEventById(idKeys[key()]);
+    }
+
+    @Benchmark
+    public int viewEventsMonth() {
+        int from = FIRST_DAY + (dayKeys[key()] - FIRST_DAY) % days;
+        console.printListing(from, from + 30);
+        return from;
+    }
+
+    @Benchmark
+    public long getInclusionChoices() {
+        return toggling.getInclusionChoices("Birthday", 1L << (key() & 7));
+    }
+
+    @Benchmark
+    public boolean generateReceipt() {
+        return console.printReceiptFor(idKeys[key()]);
+    }
+
+    // answers the inclusion prompt with the same script forever
+    private static class RepeatingInput extends InputStream {
+        private final byte[] script;
+        private int position;
+
+        RepeatingInput(String script) {
+            this.script = script.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public int read() {
+            byte next = script[position];
+            position = (position + 1) % script.length;
+            return next;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                buffer[offset + i] = script[position];
+                position = (position + 1) % script.length;
+            }
+            return length;
+        }
+    }
+}